@@ -0,0 +1,120 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Reproducible synthetic parts for the benchmarks. Every corpus is generated
+ * from a fixed seed so numbers are comparable between runs and machines.
+ * Shapes mimic tessellated CAD exports: convex parts are many-sided polygons,
+ * concave parts are notched stars and holed parts are frames with a
+ * tessellated circular cut-out.
+ */
+public final class BenchmarkCorpus {
+
+    static final long SEED = 20240601L;
+    static final double SPACING = 1.0;
+
+    private static final double CELL = 30;
+
+    public enum Kind { CONVEX, CONCAVE, HOLED, MIXED }
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Creates {@code count} parts of the given kind. Part sizes vary between
+     * 5 and 25 units so they fit on {@link #sheetFor(int)}.
+     */
+    static List<Geometry> parts(Kind kind, int count) {
+        Random random = new Random(SEED + kind.ordinal());
+        List<Geometry> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Kind k = kind == Kind.MIXED ? Kind.values()[i % 3] : kind;
+            double size = 5 + random.nextDouble() * 20;
+            parts.add(switch (k) {
+                case CONVEX -> convex(size, 8 + random.nextInt(56));
+                case CONCAVE -> concave(size, 5 + random.nextInt(20), random);
+                default -> holed(size, 16 + random.nextInt(48));
+            });
+        }
+        return parts;
+    }
+
+    /**
+     * Square sheet large enough to hold {@code count} corpus parts on a single
+     * sheet at a typical utilisation.
+     */
+    static Polygon sheetFor(int count) {
+        double side = Math.max(60, Math.sqrt(count) * 25);
+        return GeometryUtils.createSheet(side, side);
+    }
+
+    /**
+     * Places the parts on a regular grid of 30x30 cells, which is cheap and
+     * deterministic, and returns the filled sheet. The sheet keeps one empty
+     * row on top so further parts still fit.
+     */
+    static SheetBin gridBin(List<PlacedPart> parts) {
+        int columns = (int) Math.ceil(Math.sqrt(parts.size()));
+        int rows = (parts.size() + columns - 1) / columns + 1;
+        SheetBin bin = new SheetBin(GeometryUtils.createSheet(columns * CELL, rows * CELL));
+        for (int i = 0; i < parts.size(); i++) {
+            PlacedPart part = parts.get(i);
+            Envelope env = part.geometry().getEnvelopeInternal();
+            double dx = (i % columns) * CELL - env.getMinX();
+            double dy = (i / columns) * CELL - env.getMinY();
+            Geometry moved = AffineTransformation.translationInstance(dx, dy).transform(part.geometry());
+            bin.placed().add(part.withGeometry(moved));
+        }
+        return bin;
+    }
+
+    /**
+     * Wraps the parts as unplaced {@link PlacedPart}s buffered by
+     * {@code spacing}, as the service does before placement.
+     */
+    static List<PlacedPart> buffered(List<Geometry> parts, double spacing) {
+        List<PlacedPart> result = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            result.add(new PlacedPart(i, 0, GeometryUtils.applySpacing(parts.get(i), spacing)));
+        }
+        return result;
+    }
+
+    private static Polygon convex(double size, int vertices) {
+        List<Coordinate> coords = new ArrayList<>(vertices);
+        for (int i = 0; i < vertices; i++) {
+            double a = 2 * Math.PI * i / vertices;
+            coords.add(new Coordinate(size / 2 * (1 + Math.cos(a)), size / 3 * (1 + Math.sin(a))));
+        }
+        return GeometryUtils.createPolygon(coords);
+    }
+
+    private static Polygon concave(double size, int arms, Random random) {
+        List<Coordinate> coords = new ArrayList<>(arms * 2);
+        for (int i = 0; i < arms * 2; i++) {
+            double a = Math.PI * i / arms;
+            double r = i % 2 == 0 ? size / 2 : size / 2 * (0.35 + random.nextDouble() * 0.3);
+            coords.add(new Coordinate(size / 2 + r * Math.cos(a), size / 2 + r * Math.sin(a)));
+        }
+        return GeometryUtils.createPolygon(coords);
+    }
+
+    private static Geometry holed(double size, int holeVertices) {
+        Polygon outer = GeometryUtils.createSheet(size, size * 0.8);
+        List<Coordinate> hole = new ArrayList<>(holeVertices);
+        for (int i = 0; i < holeVertices; i++) {
+            double a = 2 * Math.PI * i / holeVertices;
+            hole.add(new Coordinate(size / 2 + size / 4 * Math.cos(a), size * 0.4 + size / 4 * Math.sin(a)));
+        }
+        return outer.difference(GeometryUtils.createPolygon(hole));
+    }
+}
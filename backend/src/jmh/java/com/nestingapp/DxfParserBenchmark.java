@@ -0,0 +1,118 @@
+package com.nestingapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link DxfParser} on a synthetic drawing mixing bulged
+ * polylines, LINE/ARC outlines, circular holes and splines. Run with
+ * {@code -prof gc} to check that allocation per part stays constant as the
+ * file grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DxfParserBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int parts;
+
+    private byte[] content;
+
+    @Setup
+    public void setUp() {
+        content = drawing(parts).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public Geometry parse() throws IOException {
+        return new DxfParser().parse(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Lays out {@code count} parts on a grid. Every fourth part is a bulged
+     * slot, a LINE/ARC outline, a plate with a hole or a spline blob.
+     */
+    static String drawing(int count) {
+        Random random = new Random(BenchmarkCorpus.SEED);
+        StringBuilder sb = new StringBuilder(count * 400);
+        pairs(sb, "0", "SECTION", "2", "ENTITIES");
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        for (int i = 0; i < count; i++) {
+            double x = (i % columns) * 30;
+            double y = (i / columns) * 30;
+            double size = 5 + random.nextDouble() * 20;
+            switch (i % 4) {
+                case 0 -> {
+                    pairs(sb, "0", "LWPOLYLINE", "90", "4", "70", "1");
+                    vertex(sb, x, y, 0);
+                    vertex(sb, x + size, y, 1);
+                    vertex(sb, x + size, y + size / 2, 0);
+                    vertex(sb, x, y + size / 2, 1);
+                }
+                case 1 -> {
+                    double r = size / 2;
+                    line(sb, x, y, x + size, y);
+                    line(sb, x + size, y, x + size, y + size);
+                    pairs(sb, "0", "ARC", "10", num(x + r), "20", num(y + size), "40", num(r),
+                        "50", "0", "51", "180");
+                    line(sb, x, y + size, x, y);
+                }
+                case 2 -> {
+                    pairs(sb, "0", "LWPOLYLINE", "90", "4", "70", "1");
+                    vertex(sb, x, y, 0);
+                    vertex(sb, x + size, y, 0);
+                    vertex(sb, x + size, y + size, 0);
+                    vertex(sb, x, y + size, 0);
+                    pairs(sb, "0", "CIRCLE", "10", num(x + size / 2), "20", num(y + size / 2),
+                        "40", num(size / 4));
+                }
+                default -> {
+                    pairs(sb, "0", "SPLINE", "70", "1", "71", "3", "73", "7");
+                    double[][] ring = {
+                        { 0, 0 }, { 1, 0 }, { 1, 1 }, { 0.5, 0.6 }, { 0, 1 }, { 0, 0.5 }, { 0, 0 }
+                    };
+                    for (double[] p : ring) {
+                        pairs(sb, "10", num(x + p[0] * size), "20", num(y + p[1] * size));
+                    }
+                }
+            }
+        }
+        pairs(sb, "0", "ENDSEC", "0", "EOF");
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, double x1, double y1, double x2, double y2) {
+        pairs(sb, "0", "LINE", "10", num(x1), "20", num(y1), "11", num(x2), "21", num(y2));
+    }
+
+    private static void vertex(StringBuilder sb, double x, double y, double bulge) {
+        pairs(sb, "10", num(x), "20", num(y));
+        if (bulge != 0) {
+            pairs(sb, "42", num(bulge));
+        }
+    }
+
+    private static String num(double value) {
+        return Double.toString(value);
+    }
+
+    private static void pairs(StringBuilder sb, String... lines) {
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.nestingapp;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the {@link GeometryUtils} kernels. Each invocation works on
+ * the next part(s) of the corpus so results average over the whole corpus
+ * instead of a single shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeometryBenchmark {
+
+    @Param({ "CONVEX", "CONCAVE", "HOLED" })
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({ "10", "100", "1000" })
+    public int parts;
+
+    private List<Geometry> corpus;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        corpus = BenchmarkCorpus.parts(kind, parts);
+        cursor = 0;
+    }
+
+    private Geometry next() {
+        cursor = (cursor + 1) % corpus.size();
+        return corpus.get(cursor);
+    }
+
+    @Benchmark
+    public Geometry minkowskiSum() {
+        return GeometryUtils.minkowskiSum(next(), next());
+    }
+
+    @Benchmark
+    public Geometry noFitPolygon() {
+        return GeometryUtils.noFitPolygon(next(), next());
+    }
+
+    @Benchmark
+    public Geometry applySpacing() {
+        return GeometryUtils.applySpacing(next(), BenchmarkCorpus.SPACING);
+    }
+
+    @Benchmark
+    public Geometry rotate() {
+        return GeometryUtils.rotate(next(), 15);
+    }
+}
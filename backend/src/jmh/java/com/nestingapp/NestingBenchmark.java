@@ -0,0 +1,80 @@
+package com.nestingapp;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Single-shot benchmarks of the hill climbing refinement and of a complete
+ * seeded {@link NestingService#nestParts} run, with the NFP search and with
+ * the bottom-left fast mode. The 1000-part scale takes a long time with the
+ * NFP search; select scales with {@code -p parts=10,100} for quick
+ * comparisons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NestingBenchmark {
+
+    @Param({ "MIXED" })
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({ "10", "100", "1000" })
+    public int parts;
+
+    private List<Geometry> corpus;
+    private List<PlacedPart> buffered;
+    private List<PartShape> shapes;
+    private Polygon sheet;
+    private SheetBin bin;
+
+    @Setup(Level.Trial)
+    public void setUpCorpus() {
+        corpus = BenchmarkCorpus.parts(kind, parts);
+        buffered = BenchmarkCorpus.buffered(corpus, BenchmarkCorpus.SPACING);
+        shapes = new NestingService().shapes(corpus, null,
+                new NestingConfig(BenchmarkCorpus.SPACING, 90, 0, 0, 1));
+        sheet = BenchmarkCorpus.sheetFor(parts);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpLayout() {
+        // hill climbing mutates the sheet, start every invocation from the grid
+        bin = BenchmarkCorpus.gridBin(buffered);
+    }
+
+    @Benchmark
+    public List<PlacedPart> hillClimb() {
+        NestingService service = new NestingService(GeometryUtils.nfpEngine(), ForkJoinPool.commonPool());
+        return service.hillClimb(bin, shapes);
+    }
+
+    @Benchmark
+    public List<Geometry> nestParts() {
+        // fresh service so the NFP cache starts cold for every run
+        NestingService service = new NestingService();
+        double side = sheet.getEnvelopeInternal().getWidth();
+        return service.nestParts(corpus, sheet,
+                new NestingConfig(BenchmarkCorpus.SPACING, 90, side, side, 1).withSeed(BenchmarkCorpus.SEED));
+    }
+
+    @Benchmark
+    public List<Geometry> bottomLeft() {
+        NestingService service = new NestingService();
+        double side = sheet.getEnvelopeInternal().getWidth();
+        return service.nestParts(corpus, sheet, new NestingConfig(BenchmarkCorpus.SPACING, 90, side, side, 1)
+                .withSeed(BenchmarkCorpus.SEED).withStrategy(NestingStrategy.BOTTOM_LEFT));
+    }
+}
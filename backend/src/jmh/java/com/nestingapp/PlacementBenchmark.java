@@ -0,0 +1,51 @@
+package com.nestingapp;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks {@link NestingService#placePart} against a sheet already holding
+ * {@code parts} corpus parts. The service uses the uncached NFP engine so every
+ * invocation measures real NFP generation, candidate scoring and overlap
+ * checks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PlacementBenchmark {
+
+    @Param({ "MIXED" })
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({ "10", "100", "1000" })
+    public int parts;
+
+    private final NestingService service = new NestingService(GeometryUtils.nfpEngine(), ForkJoinPool.commonPool());
+    private SheetBin bin;
+    private List<PlacedPart> probes;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        List<PlacedPart> buffered = BenchmarkCorpus.buffered(BenchmarkCorpus.parts(kind, parts), BenchmarkCorpus.SPACING);
+        bin = BenchmarkCorpus.gridBin(buffered);
+        probes = buffered;
+        cursor = 0;
+    }
+
+    @Benchmark
+    public PlacedPart placePart() {
+        cursor = (cursor + 1) % probes.size();
+        return service.placePart(probes.get(cursor), bin);
+    }
+}
@@ -0,0 +1,149 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Fast greedy mode for large part counts. Parts are placed once, by
+ * decreasing area, with bottom-left-fill of their envelopes on a
+ * {@link Skyline} per sheet: a part goes to the first sheet with room, at the
+ * lowest position over all its allowed rotations, unless it fits into a hole
+ * of a part already on the sheet. No NFPs are computed and envelopes never
+ * overlap, so the cost is nearly linear in the number of parts; in exchange
+ * parts do not interlock and utilisation is lower than with the NFP based
+ * strategies. The search is a single round. After the time limit each part
+ * takes the first variant that fits rather than the lowest one; once the
+ * search is stopped the remaining parts are reported unplaced.
+ */
+final class BottomLeftStrategy implements NestingStrategy {
+
+    @Override
+    public boolean acceptsSeed() {
+        return false;
+    }
+
+    @Override
+    public void search(NestingSearch search) {
+        int n = search.partCount();
+        double[] areas = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            areas[i] = search.shape(i).outline(0).getArea();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(areas[b], areas[a]));
+
+        List<Sheet> sheets = new ArrayList<>();
+        List<Integer> unplaced = new ArrayList<>();
+        for (int index : order) {
+            if (search.stopped()) {
+                unplaced.add(index);
+                continue;
+            }
+            PartShape shape = search.shape(index);
+            boolean firstFit = search.expired();
+            boolean placed = false;
+            for (Sheet sheet : sheets) {
+                if (sheet.place(index, shape, firstFit)) {
+                    placed = true;
+                    break;
+                }
+            }
+            if (!placed) {
+                Sheet sheet = new Sheet(new SheetBin(search.sheet()), search.sheet().isRectangle());
+                if (sheet.place(index, shape, firstFit)) {
+                    sheets.add(sheet);
+                } else {
+                    unplaced.add(index);
+                }
+            }
+        }
+
+        List<List<PlacedPart>> layout = new ArrayList<>(sheets.size());
+        for (Sheet sheet : sheets) {
+            layout.add(sheet.parts);
+        }
+        search.completeRound(search.score(layout, unplaced));
+    }
+
+    private static final class Sheet {
+        private final SheetBin bin;
+        private final boolean rectangular;
+        private final Skyline skyline;
+        private final List<PlacedPart> parts = new ArrayList<>();
+
+        private Sheet(SheetBin bin, boolean rectangular) {
+            this.bin = bin;
+            this.rectangular = rectangular;
+            this.skyline = new Skyline(bin.bounds());
+        }
+
+        /**
+         * Places the first variant of {@code shape} that fits into a hole of a
+         * placed part, or else the variant whose top edge ends up lowest, then
+         * leftmost; with {@code firstFit} the first variant that fits on the
+         * skyline is taken. Returns {@code false} if no variant fits. Only parts with
+         * holes and parts placed in holes are indexed in the bin, as all
+         * other envelopes are kept apart by the skyline.
+         */
+        private boolean place(int index, PartShape shape, boolean firstFit) {
+            for (int v = 0; v < shape.variantCount(); v++) {
+                PlacedPart inHole = NestingService.placeInHole(
+                    new PlacedPart(index, shape.rotation(v), shape.outline(v)), bin);
+                if (inHole != null) {
+                    add(inHole, true);
+                    return true;
+                }
+            }
+            int bestVariant = -1;
+            double[] best = null;
+            for (int v = 0; v < shape.variantCount() && (best == null || !firstFit); v++) {
+                Geometry outline = shape.outline(v);
+                Envelope env = outline.getEnvelopeInternal();
+                double[] position = skyline.find(env.getWidth(), env.getHeight(),
+                    (x, y) -> rectangular || bin.contains(translate(outline, x, y)));
+                if (position != null && (best == null
+                        || position[1] + env.getHeight() < best[1] + best[2] - GeometryUtils.EPSILON
+                        || (Math.abs(position[1] + env.getHeight() - best[1] - best[2]) <= GeometryUtils.EPSILON
+                            && position[0] < best[0]))) {
+                    best = new double[] { position[0], position[1], env.getHeight() };
+                    bestVariant = v;
+                }
+            }
+            if (best == null) {
+                return false;
+            }
+            Geometry outline = shape.outline(bestVariant);
+            Envelope env = outline.getEnvelopeInternal();
+            skyline.add(best[0], best[1], env.getWidth(), env.getHeight());
+            add(new PlacedPart(index, shape.rotation(bestVariant), translate(outline, best[0], best[1])), false);
+            return true;
+        }
+
+        private void add(PlacedPart part, boolean inHole) {
+            parts.add(part);
+            if (inHole || hasHoles(part.geometry())) {
+                bin.placed().add(part);
+            }
+        }
+
+        private static boolean hasHoles(Geometry geometry) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (geometry.getGeometryN(i) instanceof Polygon p && p.getNumInteriorRing() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static Geometry translate(Geometry outline, double x, double y) {
+            return AffineTransformation.translationInstance(x, y).transform(outline);
+        }
+    }
+}
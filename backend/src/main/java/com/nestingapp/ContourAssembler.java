@@ -0,0 +1,273 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.algorithm.PointLocation;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.index.strtree.STRtree;
+
+/**
+ * Builds polygons from the contours of an imported drawing. Open paths (lines,
+ * arcs, open polylines) are chained end to end when their end points lie
+ * within the tolerance, found through a hash grid of end points. Closed rings
+ * are then nested by containment: rings at even depth become shells and rings
+ * at odd depth become holes of the shell directly containing them.
+ */
+final class ContourAssembler {
+
+    private final double tolerance;
+    private final List<Coordinate[]> rings = new ArrayList<>();
+    private final List<Path> paths = new ArrayList<>();
+
+    ContourAssembler(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Adds a closed contour. An end point within the tolerance of the start is
+     * snapped to it, otherwise the closing coordinate is added.
+     */
+    void addRing(CoordinateList ring) {
+        int last = ring.size() - 1;
+        if (last > 0 && ring.getCoordinate(0).distance(ring.getCoordinate(last)) <= tolerance) {
+            ring.set(last, ring.getCoordinate(0).copy());
+        }
+        ring.closeRing();
+        if (ring.size() >= 4) {
+            rings.add(ring.toCoordinateArray());
+        }
+    }
+
+    /**
+     * Adds an open path to be chained with others. If {@code closeIfAlone} is
+     * set and no other path continues it, the path is closed with a straight
+     * segment, as CAD tools do for polylines without the closed flag.
+     */
+    void addPath(CoordinateList path, boolean closeIfAlone) {
+        if (path.size() >= 2) {
+            paths.add(new Path(path.toCoordinateArray(), closeIfAlone));
+        }
+    }
+
+    /**
+     * Assembles all contours and returns the resulting polygons as a geometry
+     * collection, in the order their outer contours were added. Paths that do
+     * not form a closed contour are dropped.
+     */
+    Geometry toGeometry() {
+        chainPaths();
+        GeometryFactory gf = GeometryUtils.factory();
+        List<Shell> shells = nest();
+        List<Geometry> polygons = new ArrayList<>(shells.size());
+        for (Shell shell : shells) {
+            LinearRing[] holes = new LinearRing[shell.holes.size()];
+            for (int i = 0; i < holes.length; i++) {
+                holes[i] = gf.createLinearRing(shell.holes.get(i));
+            }
+            polygons.add(gf.createPolygon(gf.createLinearRing(shell.ring), holes));
+        }
+        return gf.createGeometryCollection(polygons.toArray(new Geometry[0]));
+    }
+
+    private void chainPaths() {
+        if (paths.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Integer>> grid = new HashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            Coordinate[] coords = paths.get(i).coords;
+            grid.computeIfAbsent(cell(coords[0]), k -> new ArrayList<>(2)).add(i);
+            grid.computeIfAbsent(cell(coords[coords.length - 1]), k -> new ArrayList<>(2)).add(i);
+        }
+        boolean[] used = new boolean[paths.size()];
+        for (int i = 0; i < paths.size(); i++) {
+            if (used[i]) {
+                continue;
+            }
+            used[i] = true;
+            CoordinateList chain = new CoordinateList(paths.get(i).coords, false);
+            boolean joined = extend(chain, grid, used);
+            if (!isClosed(chain)) {
+                Collections.reverse(chain);
+                joined |= extend(chain, grid, used);
+            }
+            if (isClosed(chain) || (!joined && paths.get(i).closeIfAlone)) {
+                addRing(chain);
+            }
+        }
+        paths.clear();
+    }
+
+    /**
+     * Appends matching paths at the end of {@code chain} until it closes or
+     * no unused path continues it.
+     */
+    private boolean extend(CoordinateList chain, Map<Long, List<Integer>> grid, boolean[] used) {
+        boolean joined = false;
+        while (!isClosed(chain)) {
+            Coordinate tail = chain.getCoordinate(chain.size() - 1);
+            int match = -1;
+            boolean reversed = false;
+            long key = cell(tail);
+            int cx = (int) (key >> 32);
+            int cy = (int) key;
+            search:
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    List<Integer> candidates = grid.get(key(cx + dx, cy + dy));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (int j : candidates) {
+                        if (used[j]) {
+                            continue;
+                        }
+                        Coordinate[] coords = paths.get(j).coords;
+                        if (tail.distance(coords[0]) <= tolerance) {
+                            match = j;
+                            break search;
+                        }
+                        if (tail.distance(coords[coords.length - 1]) <= tolerance) {
+                            match = j;
+                            reversed = true;
+                            break search;
+                        }
+                    }
+                }
+            }
+            if (match < 0) {
+                return joined;
+            }
+            used[match] = true;
+            joined = true;
+            Coordinate[] coords = paths.get(match).coords;
+            for (int k = 1; k < coords.length; k++) {
+                chain.add(coords[reversed ? coords.length - 1 - k : k], false);
+            }
+        }
+        return joined;
+    }
+
+    private boolean isClosed(CoordinateList chain) {
+        return chain.size() > 2 && chain.getCoordinate(0).distance(chain.getCoordinate(chain.size() - 1)) <= tolerance;
+    }
+
+    private long cell(Coordinate c) {
+        return key((int) Math.floor(c.x / tolerance), (int) Math.floor(c.y / tolerance));
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * Assigns every ring to a shell or, at odd nesting depth, as a hole of the
+     * innermost shell containing it. Rings are processed from the largest to
+     * the smallest so containers are always known before their contents.
+     */
+    private List<Shell> nest() {
+        List<Node> nodes = new ArrayList<>(rings.size());
+        for (int i = 0; i < rings.size(); i++) {
+            Coordinate[] ring = rings.get(i);
+            // self-intersecting rings may have no signed area but still
+            // enclose a region, so only drop rings without extent
+            Node node = new Node(i, ring, Math.abs(signedArea(ring)));
+            if (node.envelope.getWidth() > 0 && node.envelope.getHeight() > 0) {
+                nodes.add(node);
+            }
+        }
+        nodes.sort(Comparator.comparingDouble((Node n) -> n.area).reversed());
+        STRtree tree = new STRtree();
+        for (Node node : nodes) {
+            tree.insert(node.envelope, node);
+        }
+        List<Shell> shells = new ArrayList<>();
+        for (Node node : nodes) {
+            Node container = null;
+            for (Object item : tree.query(node.envelope)) {
+                Node candidate = (Node) item;
+                // only larger rings, which are already assigned, can contain this one
+                if (candidate.shell != null && candidate.area > node.area
+                    && candidate.envelope.covers(node.envelope) && contains(candidate.ring, node.ring)
+                    && (container == null || candidate.depth > container.depth)) {
+                    container = candidate;
+                }
+            }
+            node.depth = container == null ? 0 : container.depth + 1;
+            if (node.depth % 2 == 0) {
+                node.shell = new Shell(node.order, node.ring);
+                shells.add(node.shell);
+            } else {
+                node.shell = container.shell;
+                container.shell.holes.add(node.ring);
+            }
+        }
+        shells.sort(Comparator.comparingInt(s -> s.order));
+        return shells;
+    }
+
+    /**
+     * Tests the first vertex of {@code inner} not lying on {@code outer}'s
+     * boundary, which is enough for non-crossing contours.
+     */
+    private static boolean contains(Coordinate[] outer, Coordinate[] inner) {
+        for (Coordinate c : inner) {
+            int location = PointLocation.locateInRing(c, outer);
+            if (location != Location.BOUNDARY) {
+                return location == Location.INTERIOR;
+            }
+        }
+        return false;
+    }
+
+    private static double signedArea(Coordinate[] ring) {
+        double sum = 0;
+        for (int i = 0, n = ring.length - 1; i < n; i++) {
+            sum += ring[i].x * ring[i + 1].y - ring[i + 1].x * ring[i].y;
+        }
+        return sum / 2;
+    }
+
+    private record Path(Coordinate[] coords, boolean closeIfAlone) {}
+
+    private static final class Node {
+        final int order;
+        final Coordinate[] ring;
+        final double area;
+        final Envelope envelope;
+        int depth;
+        Shell shell;
+
+        Node(int order, Coordinate[] ring, double area) {
+            this.order = order;
+            this.ring = ring;
+            this.area = area;
+            this.envelope = new Envelope();
+            for (Coordinate c : ring) {
+                envelope.expandToInclude(c);
+            }
+        }
+    }
+
+    private static final class Shell {
+        final int order;
+        final Coordinate[] ring;
+        final List<Coordinate[]> holes = new ArrayList<>();
+
+        Shell(int order, Coordinate[] ring) {
+            this.order = order;
+            this.ring = ring;
+        }
+    }
+}
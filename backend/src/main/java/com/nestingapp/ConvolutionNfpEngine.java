@@ -0,0 +1,443 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.algorithm.Orientation;
+import org.locationtech.jts.coverage.CoverageUnion;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.TopologyException;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.operation.polygonize.Polygonizer;
+import org.locationtech.jts.operation.union.CascadedPolygonUnion;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+import org.locationtech.jts.triangulate.polygon.PolygonTriangulator;
+
+/**
+ * NFP engine combining three exact Minkowski sum strategies.
+ * <p>
+ * Two convex polygons are summed in linear time by merging their edges by
+ * slope. Simple concave polygons are triangulated, merged into convex pieces
+ * (Hertel-Mehlhorn) and the pairwise convex sums are combined with a cascaded
+ * union.
+ * <p>
+ * Polygons with holes decompose into many pieces, so they use the reduced
+ * convolution instead: every edge of one polygon translated to each convex
+ * vertex of the other whose tangent cone contains the edge direction. These
+ * segments contain the boundary of the sum, including its holes. They are
+ * noded once and polygonized, each face is kept if its interior point is
+ * covered by the sum, and the kept faces are merged with a coverage union. If
+ * noding fails on degenerate input the decomposition is used instead.
+ */
+public class ConvolutionNfpEngine implements NoFitPolygonEngine {
+
+    private static final double EPS = 1e-12;
+
+    @Override
+    public Geometry minkowskiSum(Geometry a, Geometry b) {
+        List<Polygon> polysA = polygons(a);
+        List<Polygon> polysB = polygons(b);
+        List<Geometry> sums = new ArrayList<>(polysA.size() * polysB.size());
+        for (Polygon pa : polysA) {
+            for (Polygon pb : polysB) {
+                Geometry sum = sum(pa, pb);
+                if (!sum.isEmpty()) {
+                    sums.add(sum);
+                }
+            }
+        }
+        if (sums.isEmpty()) {
+            return GeometryUtils.emptyGeometry();
+        }
+        if (sums.size() == 1) {
+            return sums.get(0);
+        }
+        return CascadedPolygonUnion.union(sums);
+    }
+
+    private static List<Polygon> polygons(Geometry g) {
+        List<Polygon> polygons = new ArrayList<>();
+        for (int i = 0; i < g.getNumGeometries(); i++) {
+            if (g.getGeometryN(i) instanceof Polygon polygon && !polygon.isEmpty()) {
+                polygons.add(polygon);
+            }
+        }
+        return polygons;
+    }
+
+    private static Geometry sum(Polygon a, Polygon b) {
+        Coordinate[] convexA = convexShell(a);
+        Coordinate[] convexB = convexShell(b);
+        if (convexA != null && convexB != null) {
+            Polygon sum = convexSum(convexA, convexB);
+            return sum != null ? sum : GeometryUtils.emptyGeometry();
+        }
+        if (a.getNumInteriorRing() == 0 && b.getNumInteriorRing() == 0) {
+            return decompositionSum(a, b);
+        }
+        try {
+            return convolutionSum(a, b);
+        } catch (TopologyException ex) {
+            return decompositionSum(a, b);
+        }
+    }
+
+    /**
+     * Returns the open counter-clockwise shell if the polygon is convex and has
+     * no holes, otherwise {@code null}.
+     */
+    private static Coordinate[] convexShell(Polygon polygon) {
+        if (polygon.getNumInteriorRing() > 0) {
+            return null;
+        }
+        Coordinate[] shell = openCcwRing(polygon.getExteriorRing().getCoordinates());
+        return shell.length >= 3 && isConvex(shell) ? shell : null;
+    }
+
+    /**
+     * Minkowski sum from the reduced convolution of all ring pairs.
+     */
+    private static Geometry convolutionSum(Polygon a, Polygon b) {
+        List<Coordinate[]> ringsA = interiorLeftRings(a);
+        List<Coordinate[]> ringsB = interiorLeftRings(b);
+        GeometryFactory factory = GeometryUtils.factory();
+        List<LineString> segments = new ArrayList<>();
+        for (Coordinate[] ra : ringsA) {
+            for (Coordinate[] rb : ringsB) {
+                addConvolution(ra, rb, segments, factory);
+                addConvolution(rb, ra, segments, factory);
+            }
+        }
+        if (segments.isEmpty()) {
+            return GeometryUtils.emptyGeometry();
+        }
+
+        Geometry noded = UnaryUnionOp.union(factory.createMultiLineString(segments.toArray(new LineString[0])));
+        Polygonizer polygonizer = new Polygonizer();
+        polygonizer.add(noded);
+        @SuppressWarnings("unchecked")
+        Collection<Polygon> faces = polygonizer.getPolygons();
+
+        // p lies in A + B exactly when A intersects p - B
+        PreparedGeometry preparedA = PreparedGeometryFactory.prepare(a);
+        Geometry reflectedB = AffineTransformation.scaleInstance(-1, -1).transform(b);
+        List<Geometry> kept = new ArrayList<>();
+        for (Polygon face : faces) {
+            Point p = face.getInteriorPoint();
+            if (p.isEmpty()) {
+                continue;
+            }
+            Geometry probe = AffineTransformation.translationInstance(p.getX(), p.getY()).transform(reflectedB);
+            if (preparedA.intersects(probe)) {
+                kept.add(face);
+            }
+        }
+        if (kept.isEmpty()) {
+            return GeometryUtils.emptyGeometry();
+        }
+        return kept.size() == 1 ? kept.get(0) : CoverageUnion.union(kept.toArray(new Geometry[0]));
+    }
+
+    /**
+     * Adds the segments {@code v + e} for every convex vertex {@code v} of
+     * {@code vertices} and every edge {@code e} of {@code edges} whose direction
+     * lies in the tangent cone at {@code v}. Both rings must have the polygon
+     * interior on their left.
+     */
+    private static void addConvolution(Coordinate[] vertices, Coordinate[] edges, List<LineString> segments,
+                                       GeometryFactory factory) {
+        int n = vertices.length;
+        int m = edges.length;
+        for (int i = 0; i < n; i++) {
+            Coordinate prev = vertices[(i + n - 1) % n];
+            Coordinate v = vertices[i];
+            Coordinate next = vertices[(i + 1) % n];
+            double inX = v.x - prev.x;
+            double inY = v.y - prev.y;
+            double outX = next.x - v.x;
+            double outY = next.y - v.y;
+            if (inX * outY - inY * outX <= 0) {
+                continue; // reflex vertices never contribute to the boundary
+            }
+            for (int j = 0; j < m; j++) {
+                Coordinate e0 = edges[j];
+                Coordinate e1 = edges[(j + 1) % m];
+                double dx = e1.x - e0.x;
+                double dy = e1.y - e0.y;
+                if (inX * dy - inY * dx >= 0 && dx * outY - dy * outX >= 0) {
+                    segments.add(factory.createLineString(new Coordinate[] {
+                        new Coordinate(v.x + e0.x, v.y + e0.y),
+                        new Coordinate(v.x + e1.x, v.y + e1.y)
+                    }));
+                }
+            }
+        }
+    }
+
+    /**
+     * Open rings of the polygon oriented with the interior on their left: the
+     * shell counter-clockwise and the holes clockwise.
+     */
+    private static List<Coordinate[]> interiorLeftRings(Polygon polygon) {
+        List<Coordinate[]> rings = new ArrayList<>();
+        Coordinate[] shell = openCcwRing(polygon.getExteriorRing().getCoordinates());
+        if (shell.length >= 3) {
+            rings.add(shell);
+        }
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            Coordinate[] hole = openCcwRing(polygon.getInteriorRingN(i).getCoordinates());
+            if (hole.length >= 3) {
+                reverse(hole);
+                rings.add(hole);
+            }
+        }
+        return rings;
+    }
+
+    /**
+     * Minkowski sum as the union of the pairwise sums of convex pieces.
+     */
+    private static Geometry decompositionSum(Polygon a, Polygon b) {
+        List<Coordinate[]> piecesA = convexPieces(a);
+        List<Coordinate[]> piecesB = convexPieces(b);
+        List<Geometry> sums = new ArrayList<>(piecesA.size() * piecesB.size());
+        for (Coordinate[] pa : piecesA) {
+            for (Coordinate[] pb : piecesB) {
+                Polygon sum = convexSum(pa, pb);
+                if (sum != null) {
+                    sums.add(sum);
+                }
+            }
+        }
+        if (sums.isEmpty()) {
+            return GeometryUtils.emptyGeometry();
+        }
+        return sums.size() == 1 ? sums.get(0) : CascadedPolygonUnion.union(sums);
+    }
+
+    /**
+     * Splits the polygon into convex, counter-clockwise rings without a
+     * repeated closing coordinate.
+     */
+    static List<Coordinate[]> convexPieces(Polygon polygon) {
+        Coordinate[] shell = convexShell(polygon);
+        return shell != null ? List.<Coordinate[]>of(shell) : decompose(polygon);
+    }
+
+    /**
+     * Triangulates the polygon and merges adjacent triangles while their union
+     * stays convex.
+     */
+    private static List<Coordinate[]> decompose(Polygon polygon) {
+        Geometry triangles = PolygonTriangulator.triangulate(polygon);
+        List<List<Coordinate>> pieces = new ArrayList<>();
+        Map<Edge, Integer> edges = new HashMap<>();
+        for (int i = 0; i < triangles.getNumGeometries(); i++) {
+            Coordinate[] tri = openCcwRing(triangles.getGeometryN(i).getCoordinates());
+            if (tri.length != 3) {
+                continue;
+            }
+            List<Coordinate> piece = new ArrayList<>(List.of(tri));
+            register(edges, piece, pieces.size());
+            pieces.add(piece);
+        }
+
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            for (int id = 0; id < pieces.size(); id++) {
+                List<Coordinate> piece = pieces.get(id);
+                if (piece == null) {
+                    continue;
+                }
+                for (int e = 0; e < piece.size(); e++) {
+                    Coordinate p = piece.get(e);
+                    Coordinate q = piece.get((e + 1) % piece.size());
+                    Integer other = edges.get(new Edge(q, p));
+                    if (other == null || other == id) {
+                        continue;
+                    }
+                    List<Coordinate> joined = splice(piece, e, pieces.get(other), q, p);
+                    if (joined == null || !isConvex(joined.toArray(new Coordinate[0]))) {
+                        continue;
+                    }
+                    unregister(edges, piece);
+                    unregister(edges, pieces.get(other));
+                    pieces.set(other, null);
+                    pieces.set(id, joined);
+                    register(edges, joined, id);
+                    merged = true;
+                    break;
+                }
+            }
+        }
+
+        List<Coordinate[]> result = new ArrayList<>();
+        for (List<Coordinate> piece : pieces) {
+            if (piece != null) {
+                result.add(piece.toArray(new Coordinate[0]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Joins piece {@code a} (containing edge p-q at index {@code e}) with piece
+     * {@code b} (containing the reversed edge q-p) by removing the shared edge.
+     */
+    private static List<Coordinate> splice(List<Coordinate> a, int e, List<Coordinate> b,
+                                           Coordinate q, Coordinate p) {
+        int start = -1;
+        for (int i = 0; i < b.size(); i++) {
+            if (b.get(i).equals2D(q) && b.get((i + 1) % b.size()).equals2D(p)) {
+                start = i;
+                break;
+            }
+        }
+        if (start < 0) {
+            return null;
+        }
+        List<Coordinate> joined = new ArrayList<>(a.size() + b.size() - 2);
+        // walk a from q round to p, then b from after p back to before q
+        for (int i = 1; i <= a.size(); i++) {
+            joined.add(a.get((e + i) % a.size()));
+        }
+        for (int i = 2; i < b.size(); i++) {
+            joined.add(b.get((start + i) % b.size()));
+        }
+        return joined;
+    }
+
+    private static void register(Map<Edge, Integer> edges, List<Coordinate> piece, int id) {
+        for (int i = 0; i < piece.size(); i++) {
+            edges.put(new Edge(piece.get(i), piece.get((i + 1) % piece.size())), id);
+        }
+    }
+
+    private static void unregister(Map<Edge, Integer> edges, List<Coordinate> piece) {
+        for (int i = 0; i < piece.size(); i++) {
+            edges.remove(new Edge(piece.get(i), piece.get((i + 1) % piece.size())));
+        }
+    }
+
+    /**
+     * Minkowski sum of two convex counter-clockwise polygons obtained by merging
+     * their edge sequences ordered by polar angle. Runs in O(n + m).
+     */
+    static Polygon convexSum(Coordinate[] a, Coordinate[] b) {
+        Coordinate[] p = rotateToLowest(a);
+        Coordinate[] q = rotateToLowest(b);
+        int n = p.length;
+        int m = q.length;
+        List<Coordinate> sum = new ArrayList<>(n + m + 1);
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            Coordinate pi = p[i % n];
+            Coordinate qj = q[j % m];
+            sum.add(new Coordinate(pi.x + qj.x, pi.y + qj.y));
+            Coordinate pn = p[(i + 1) % n];
+            Coordinate qn = q[(j + 1) % m];
+            double cross = (pn.x - pi.x) * (qn.y - qj.y) - (pn.y - pi.y) * (qn.x - qj.x);
+            if (cross >= 0 && i < n) {
+                i++;
+            }
+            if (cross <= 0 && j < m) {
+                j++;
+            }
+        }
+        if (sum.size() < 3) {
+            return null;
+        }
+        Polygon polygon = GeometryUtils.createPolygon(sum);
+        return polygon.getArea() > EPS ? polygon : null;
+    }
+
+    private static Coordinate[] rotateToLowest(Coordinate[] ring) {
+        int lowest = 0;
+        for (int i = 1; i < ring.length; i++) {
+            Coordinate c = ring[i];
+            Coordinate l = ring[lowest];
+            if (c.y < l.y || (c.y == l.y && c.x < l.x)) {
+                lowest = i;
+            }
+        }
+        Coordinate[] rotated = new Coordinate[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            rotated[i] = ring[(lowest + i) % ring.length];
+        }
+        return rotated;
+    }
+
+    /**
+     * Returns the ring oriented counter-clockwise, without the closing
+     * coordinate, repeated points or collinear vertices.
+     */
+    private static Coordinate[] openCcwRing(Coordinate[] closed) {
+        List<Coordinate> open = new ArrayList<>(closed.length);
+        for (Coordinate c : closed) {
+            if (open.isEmpty() || !open.get(open.size() - 1).equals2D(c)) {
+                open.add(c);
+            }
+        }
+        if (open.size() > 1 && open.get(0).equals2D(open.get(open.size() - 1))) {
+            open.remove(open.size() - 1);
+        }
+        if (open.size() < 3) {
+            return new Coordinate[0];
+        }
+        List<Coordinate> ring = new ArrayList<>(open.size());
+        for (int i = 0; i < open.size(); i++) {
+            Coordinate prev = open.get((i + open.size() - 1) % open.size());
+            Coordinate cur = open.get(i);
+            Coordinate next = open.get((i + 1) % open.size());
+            if (Math.abs(cross(prev, cur, next)) > EPS) {
+                ring.add(cur);
+            }
+        }
+        Coordinate[] result = ring.toArray(new Coordinate[0]);
+        if (result.length >= 3) {
+            Coordinate[] closedRing = new Coordinate[result.length + 1];
+            System.arraycopy(result, 0, closedRing, 0, result.length);
+            closedRing[result.length] = result[0];
+            if (!Orientation.isCCW(closedRing)) {
+                reverse(result);
+            }
+        }
+        return result;
+    }
+
+    private static void reverse(Coordinate[] ring) {
+        for (int i = 0, k = ring.length - 1; i < k; i++, k--) {
+            Coordinate tmp = ring[i];
+            ring[i] = ring[k];
+            ring[k] = tmp;
+        }
+    }
+
+    private static boolean isConvex(Coordinate[] ccw) {
+        int n = ccw.length;
+        for (int i = 0; i < n; i++) {
+            if (cross(ccw[(i + n - 1) % n], ccw[i], ccw[(i + 1) % n]) < -EPS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double cross(Coordinate o, Coordinate a, Coordinate b) {
+        return (a.x - o.x) * (b.y - o.y) - (a.y - o.y) * (b.x - o.x);
+    }
+
+    private record Edge(Coordinate from, Coordinate to) {}
+}
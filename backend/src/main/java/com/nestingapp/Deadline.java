@@ -0,0 +1,50 @@
+package com.nestingapp;
+
+/**
+ * Point in time after which a search should wrap up and return the best
+ * layout it has. Based on {@link System#nanoTime()}, so it is unaffected by
+ * wall clock adjustments. A deadline can also be stopped ahead of time,
+ * which tells evaluations still running for a finished search to give up.
+ */
+final class Deadline {
+
+    /** Deadline that never expires and cannot be stopped. */
+    static final Deadline NONE = new Deadline(0, 0);
+
+    private final long start;
+    private final long budgetNanos;
+    private volatile boolean stopped;
+
+    private Deadline(long start, long budgetNanos) {
+        this.start = start;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Deadline {@code millis} from now; it only expires by {@link #stop()} if
+     * {@code millis} is not positive.
+     */
+    static Deadline in(long millis) {
+        return new Deadline(System.nanoTime(), millis > 0 ? millis * 1_000_000 : 0);
+    }
+
+    /**
+     * Expires the deadline now and marks it stopped; ignored by {@link #NONE}.
+     */
+    void stop() {
+        if (this != NONE) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Whether {@link #stop()} was called, after which results are discarded.
+     */
+    boolean stopped() {
+        return stopped;
+    }
+
+    boolean expired() {
+        return stopped || budgetNanos > 0 && System.nanoTime() - start >= budgetNanos;
+    }
+}
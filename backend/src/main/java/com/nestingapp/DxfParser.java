@@ -1,49 +1,408 @@
 package com.nestingapp;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Polygon;
 
 /**
- * Very small DXF parser supporting extraction of simple LWPOLYLINE entities
- * into JTS polygons. The implementation is intentionally minimal and only
- * handles XY coordinates.
+ * Streaming DXF parser extracting part outlines as JTS polygons. Group codes
+ * are read pair by pair from the stream, so files of any size are parsed
+ * without holding their text in memory.
+ * <p>
+ * Supported entities are LWPOLYLINE and POLYLINE (including bulges), LINE,
+ * ARC, CIRCLE and SPLINE. Curves are tessellated so the chords deviate at
+ * most {@code tolerance} drawing units from the exact curve. Open entities
+ * are chained into closed contours and contours inside other contours become
+ * holes. Block definitions are skipped; only XY coordinates are used.
  */
 public class DxfParser {
 
+    /** Default chord tolerance in drawing units. */
+    public static final double DEFAULT_TOLERANCE = 0.01;
+
+    private final double tolerance;
+
+    public DxfParser() {
+        this(DEFAULT_TOLERANCE);
+    }
+
+    public DxfParser(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("tolerance must be positive");
+        }
+        this.tolerance = tolerance;
+    }
+
     /**
      * Parses DXF content and returns a geometry collection of any discovered
      * polygons.
      */
     public Geometry parse(String dxfContent) {
-        String[] lines = dxfContent.split("\r?\n");
-        List<Polygon> polygons = new ArrayList<>();
-        List<Coordinate> current = null;
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
-            if ("LWPOLYLINE".equalsIgnoreCase(line)) {
-                current = new ArrayList<>();
-            } else if (current != null) {
-                if ("0".equals(line)) {
-                    if (!current.isEmpty()) {
-                        polygons.add(GeometryUtils.createPolygon(current));
-                    }
-                    current = null;
-                } else if ("10".equals(line) && i + 3 < lines.length) {
-                    double x = Double.parseDouble(lines[++i].trim());
-                    String code = lines[++i].trim();
-                    if ("20".equals(code)) {
-                        double y = Double.parseDouble(lines[++i].trim());
-                        current.add(new Coordinate(x, y));
-                    }
-                }
-            }
-        }
-        GeometryFactory gf = GeometryUtils.factory();
-        return gf.createGeometryCollection(polygons.toArray(new Geometry[0]));
+        try {
+            return parse(new StringReader(dxfContent));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Parses a DXF stream. The stream is read to the end but not closed.
+     */
+    public Geometry parse(InputStream in) throws IOException {
+        // group codes, keywords and numbers are ASCII; text values are not used
+        return parse(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+    }
+
+    private Geometry parse(Reader in) throws IOException {
+        return new Session(new DxfReader(in)).run();
+    }
+
+    /**
+     * State of a single parse, so one parser can be shared between threads.
+     */
+    private final class Session {
+
+        private final DxfReader dxf;
+        private final ContourAssembler contours = new ContourAssembler(tolerance);
+        private final Vertices vertices = new Vertices();
+        private final Vertices fitPoints = new Vertices();
+        private final Values knots = new Values();
+        private final Values weights = new Values();
+
+        Session(DxfReader dxf) {
+            this.dxf = dxf;
+        }
+
+        Geometry run() throws IOException {
+            boolean inBlocks = false;
+            while (dxf.next()) {
+                if (dxf.code() != 0) {
+                    continue;
+                }
+                if (dxf.valueIs("SECTION")) {
+                    if (dxf.next() && dxf.code() == 2) {
+                        inBlocks = dxf.valueIs("BLOCKS");
+                    } else {
+                        dxf.pushBack();
+                    }
+                } else if (dxf.valueIs("ENDSEC")) {
+                    inBlocks = false;
+                } else if (dxf.valueIs("EOF")) {
+                    break;
+                } else if (!inBlocks) {
+                    readEntity();
+                }
+            }
+            return contours.toGeometry();
+        }
+
+        private void readEntity() throws IOException {
+            if (dxf.valueIs("LWPOLYLINE")) {
+                readLwPolyline();
+            } else if (dxf.valueIs("POLYLINE")) {
+                readPolyline();
+            } else if (dxf.valueIs("LINE")) {
+                readLine();
+            } else if (dxf.valueIs("ARC")) {
+                readArc(false);
+            } else if (dxf.valueIs("CIRCLE")) {
+                readArc(true);
+            } else if (dxf.valueIs("SPLINE")) {
+                readSpline();
+            }
+        }
+
+        private void readLwPolyline() throws IOException {
+            vertices.clear();
+            int flags = 0;
+            boolean mirrored = false;
+            while (dxf.next()) {
+                switch (dxf.code()) {
+                    case 0 -> {
+                        dxf.pushBack();
+                        emitPolyline((flags & 1) != 0, mirrored);
+                        return;
+                    }
+                    case 70 -> flags = dxf.intValue();
+                    case 10 -> vertices.add(dxf.doubleValue(), 0, 0);
+                    case 20 -> vertices.setLastY(dxf.doubleValue());
+                    case 42 -> vertices.setLastBulge(dxf.doubleValue());
+                    case 230 -> mirrored = dxf.doubleValue() < 0;
+                    default -> {
+                    }
+                }
+            }
+            emitPolyline((flags & 1) != 0, mirrored);
+        }
+
+        /**
+         * Reads a POLYLINE header and its VERTEX entities up to SEQEND. Meshes
+         * and spline frame points are skipped.
+         */
+        private void readPolyline() throws IOException {
+            vertices.clear();
+            int flags = 0;
+            boolean mirrored = false;
+            boolean inVertex = false;
+            double x = 0;
+            double y = 0;
+            double bulge = 0;
+            int vertexFlags = 0;
+            while (dxf.next()) {
+                int code = dxf.code();
+                if (code == 0) {
+                    // spline frame control points (flag 16) are not part of the outline
+                    if (inVertex && (vertexFlags & 16) == 0) {
+                        vertices.add(x, y, bulge);
+                    }
+                    inVertex = dxf.valueIs("VERTEX");
+                    if (inVertex) {
+                        x = 0;
+                        y = 0;
+                        bulge = 0;
+                        vertexFlags = 0;
+                        continue;
+                    }
+                    if (!dxf.valueIs("SEQEND")) {
+                        dxf.pushBack();
+                    }
+                    break;
+                }
+                if (inVertex) {
+                    switch (code) {
+                        case 10 -> x = dxf.doubleValue();
+                        case 20 -> y = dxf.doubleValue();
+                        case 42 -> bulge = dxf.doubleValue();
+                        case 70 -> vertexFlags = dxf.intValue();
+                        default -> {
+                        }
+                    }
+                } else if (code == 70) {
+                    flags = dxf.intValue();
+                } else if (code == 230) {
+                    mirrored = dxf.doubleValue() < 0;
+                }
+            }
+            if (inVertex && (vertexFlags & 16) == 0) {
+                vertices.add(x, y, bulge);
+            }
+            if ((flags & (16 | 64)) == 0) {
+                emitPolyline((flags & 1) != 0, mirrored);
+            }
+        }
+
+        private void emitPolyline(boolean closed, boolean mirrored) {
+            int n = vertices.size;
+            if (n < 2) {
+                return;
+            }
+            double sign = mirrored ? -1 : 1;
+            CoordinateList out = new CoordinateList();
+            int segments = closed ? n : n - 1;
+            for (int i = 0; i < segments; i++) {
+                int j = (i + 1) % n;
+                // mirroring the x axis also reverses the bulge direction
+                Tessellation.bulge(out, sign * vertices.x[i], vertices.y[i], sign * vertices.x[j], vertices.y[j],
+                    sign * vertices.bulge[i], tolerance);
+            }
+            if (closed) {
+                contours.addRing(out);
+            } else {
+                contours.addPath(out, true);
+            }
+        }
+
+        private void readLine() throws IOException {
+            double x1 = 0;
+            double y1 = 0;
+            double x2 = 0;
+            double y2 = 0;
+            while (dxf.next()) {
+                int code = dxf.code();
+                if (code == 0) {
+                    dxf.pushBack();
+                    break;
+                }
+                switch (code) {
+                    case 10 -> x1 = dxf.doubleValue();
+                    case 20 -> y1 = dxf.doubleValue();
+                    case 11 -> x2 = dxf.doubleValue();
+                    case 21 -> y2 = dxf.doubleValue();
+                    default -> {
+                    }
+                }
+            }
+            CoordinateList out = new CoordinateList();
+            out.add(new Coordinate(x1, y1), false);
+            out.add(new Coordinate(x2, y2), false);
+            contours.addPath(out, false);
+        }
+
+        /**
+         * Reads an ARC, or a CIRCLE if {@code full} is set. Angles are in
+         * degrees, counter-clockwise in the entity's coordinate system.
+         */
+        private void readArc(boolean full) throws IOException {
+            double cx = 0;
+            double cy = 0;
+            double radius = 0;
+            double start = 0;
+            double end = 360;
+            boolean mirrored = false;
+            while (dxf.next()) {
+                int code = dxf.code();
+                if (code == 0) {
+                    dxf.pushBack();
+                    break;
+                }
+                switch (code) {
+                    case 10 -> cx = dxf.doubleValue();
+                    case 20 -> cy = dxf.doubleValue();
+                    case 40 -> radius = dxf.doubleValue();
+                    case 50 -> start = dxf.doubleValue();
+                    case 51 -> end = dxf.doubleValue();
+                    case 230 -> mirrored = dxf.doubleValue() < 0;
+                    default -> {
+                    }
+                }
+            }
+            if (!(radius > 0)) {
+                return;
+            }
+            CoordinateList out = new CoordinateList();
+            if (full) {
+                Tessellation.arc(out, mirrored ? -cx : cx, cy, radius, 0, 2 * Math.PI, tolerance);
+                contours.addRing(out);
+                return;
+            }
+            double sweep = end - start;
+            while (sweep <= 0) {
+                sweep += 360;
+            }
+            double startRad = Math.toRadians(start);
+            double sweepRad = Math.toRadians(sweep);
+            if (mirrored) {
+                // (x, y) -> (-x, y) maps angle a to pi - a and flips the direction
+                Tessellation.arc(out, -cx, cy, radius, Math.PI - startRad, -sweepRad, tolerance);
+            } else {
+                Tessellation.arc(out, cx, cy, radius, startRad, sweepRad, tolerance);
+            }
+            contours.addPath(out, false);
+        }
+
+        private void readSpline() throws IOException {
+            vertices.clear();
+            fitPoints.clear();
+            knots.clear();
+            weights.clear();
+            int flags = 0;
+            int degree = 3;
+            boolean rational = false;
+            while (dxf.next()) {
+                int code = dxf.code();
+                if (code == 0) {
+                    dxf.pushBack();
+                    break;
+                }
+                switch (code) {
+                    case 70 -> {
+                        flags = dxf.intValue();
+                        rational = (flags & 4) != 0;
+                    }
+                    case 71 -> degree = dxf.intValue();
+                    case 40 -> knots.add(dxf.doubleValue());
+                    case 41 -> weights.add(dxf.doubleValue());
+                    case 10 -> vertices.add(dxf.doubleValue(), 0, 0);
+                    case 20 -> vertices.setLastY(dxf.doubleValue());
+                    case 11 -> fitPoints.add(dxf.doubleValue(), 0, 0);
+                    case 21 -> fitPoints.setLastY(dxf.doubleValue());
+                    default -> {
+                    }
+                }
+            }
+            boolean closed = (flags & 1) != 0;
+            CoordinateList out = new CoordinateList();
+            int n = vertices.size;
+            if (n > degree && degree >= 1) {
+                double[] knotVector = knots.size == n + degree + 1
+                    ? knots.data
+                    : Tessellation.uniformKnots(degree, n);
+                double[] weightVector = rational && weights.size == n ? weights.data : null;
+                Tessellation.bSpline(out, degree, knotVector, vertices.x, vertices.y, weightVector, n, tolerance);
+            } else {
+                Vertices points = n >= 2 ? vertices : fitPoints;
+                for (int i = 0; i < points.size; i++) {
+                    out.add(new Coordinate(points.x[i], points.y[i]), false);
+                }
+            }
+            if (closed) {
+                contours.addRing(out);
+            } else {
+                contours.addPath(out, false);
+            }
+        }
+    }
+
+    /**
+     * Growable vertex buffer with per-vertex bulges, reused across entities.
+     */
+    private static final class Vertices {
+        double[] x = new double[64];
+        double[] y = new double[64];
+        double[] bulge = new double[64];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double vx, double vy, double vb) {
+            if (size == x.length) {
+                x = Arrays.copyOf(x, size * 2);
+                y = Arrays.copyOf(y, size * 2);
+                bulge = Arrays.copyOf(bulge, size * 2);
+            }
+            x[size] = vx;
+            y[size] = vy;
+            bulge[size] = vb;
+            size++;
+        }
+
+        void setLastY(double vy) {
+            if (size > 0) {
+                y[size - 1] = vy;
+            }
+        }
+
+        void setLastBulge(double value) {
+            if (size > 0) {
+                bulge[size - 1] = value;
+            }
+        }
+    }
+
+    private static final class Values {
+        double[] data = new double[16];
+        int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(double value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
     }
 }
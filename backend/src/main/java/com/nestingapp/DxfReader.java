@@ -0,0 +1,173 @@
+package com.nestingapp;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming reader of DXF group code/value pairs. Lines are decoded into a
+ * reused character buffer, group codes and integers are parsed in place and
+ * keywords are compared without creating strings, so memory use does not
+ * depend on the file size.
+ */
+final class DxfReader {
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private char[] line = new char[128];
+    private int start;
+    private int end;
+    private long lineNumber;
+
+    private int code;
+    private boolean pushedBack;
+
+    DxfReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Advances to the next group code/value pair. Returns {@code false} at the
+     * end of the input.
+     */
+    boolean next() throws IOException {
+        if (pushedBack) {
+            pushedBack = false;
+            return true;
+        }
+        // skip stray lines that cannot be group codes to resynchronise on
+        // hand-edited files
+        do {
+            if (!readLine()) {
+                return false;
+            }
+        } while (!isInteger());
+        code = parseInt("group code");
+        // a group code without value can only be a truncated last line
+        return readLine();
+    }
+
+    /**
+     * Makes the next call to {@link #next()} return the current pair again.
+     */
+    void pushBack() {
+        pushedBack = true;
+    }
+
+    int code() {
+        return code;
+    }
+
+    /**
+     * Compares the trimmed value with {@code keyword}, ignoring case.
+     */
+    boolean valueIs(String keyword) {
+        if (end - start != keyword.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(line[start + i]) != Character.toUpperCase(keyword.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String value() {
+        return new String(line, start, end - start);
+    }
+
+    int intValue() {
+        return parseInt("integer");
+    }
+
+    double doubleValue() {
+        try {
+            return Double.parseDouble(value());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid DXF number at line " + lineNumber + ": " + value());
+        }
+    }
+
+    private boolean isInteger() {
+        int i = start;
+        if (i < end && (line[i] == '-' || line[i] == '+')) {
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return false;
+        }
+        for (; i < end; i++) {
+            if (line[i] < '0' || line[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int parseInt(String what) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new IllegalArgumentException("Invalid DXF " + what + " at line " + lineNumber + ": " + value());
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            char c = line[i];
+            if (c < '0' || c > '9' || result > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid DXF " + what + " at line " + lineNumber + ": " + value());
+            }
+            result = result * 10 + (c - '0');
+        }
+        return (int) (negative ? -result : result);
+    }
+
+    /**
+     * Reads the next line into {@link #line} and trims it. Returns
+     * {@code false} if the input is exhausted.
+     */
+    private boolean readLine() throws IOException {
+        int length = 0;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    if (!any) {
+                        return false;
+                    }
+                    break;
+                }
+            }
+            any = true;
+            char c = buffer[position++];
+            if (c == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                char[] grown = new char[line.length * 2];
+                System.arraycopy(line, 0, grown, 0, length);
+                line = grown;
+            }
+            line[length++] = c;
+        }
+        lineNumber++;
+        start = 0;
+        end = length;
+        while (start < end && Character.isWhitespace(line[start])) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(line[end - 1])) {
+            end--;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,158 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Genetic algorithm over placement orders and rotations. A chromosome is a
+ * part order plus a rotation variant per part; its fitness is the score of
+ * the first-fit layout it decodes to. The first individual places the parts
+ * by decreasing area, the rest of the initial population are mutations of
+ * it. Each generation keeps the {@link #ELITES} best individuals and fills up
+ * with children of tournament-selected parents, made by single-point order
+ * crossover and mutated by swapping adjacent parts and switching rotations.
+ * A round is one generation. With {@code parallelism > 1} the individuals of
+ * a generation are evaluated concurrently on the search executor; selection
+ * only depends on the seed, so results equal those of a sequential run.
+ */
+final class GeneticStrategy implements NestingStrategy {
+
+    static final int POPULATION_SIZE = 10;
+    static final int ELITES = 2;
+    static final double MUTATION_RATE = 0.1;
+
+    @Override
+    public void search(NestingSearch search) {
+        Random random = search.random(0);
+        List<Individual> population = initialPopulation(search, random);
+        int generation = 0;
+        while (!search.done()) {
+            evaluate(search, population);
+            population.sort(Comparator.comparingDouble(individual -> individual.layout.score()));
+            search.completeRound(population.get(0).layout);
+
+            random = search.random(++generation);
+            List<Individual> next = new ArrayList<>(population.subList(0, ELITES));
+            while (next.size() < POPULATION_SIZE) {
+                Individual mother = select(population, random);
+                Individual father = select(population, random);
+                next.add(mutate(search, crossover(mother, father, random), random));
+                if (next.size() < POPULATION_SIZE) {
+                    next.add(mutate(search, crossover(father, mother, random), random));
+                }
+            }
+            population = next;
+        }
+    }
+
+    private static List<Individual> initialPopulation(NestingSearch search, Random random) {
+        int n = search.partCount();
+        double[] areas = new double[n];
+        Integer[] byArea = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            areas[i] = search.shape(i).outline(0).getArea();
+            byArea[i] = i;
+        }
+        Arrays.sort(byArea, (a, b) -> Double.compare(areas[b], areas[a]));
+        Individual first = new Individual(Arrays.stream(byArea).mapToInt(Integer::intValue).toArray(), new int[n]);
+
+        List<Individual> population = new ArrayList<>(POPULATION_SIZE);
+        population.add(first);
+        while (population.size() < POPULATION_SIZE) {
+            population.add(mutate(search, first, random));
+        }
+        return population;
+    }
+
+    /**
+     * Computes the layout of every individual that does not have one yet.
+     */
+    private static void evaluate(NestingSearch search, List<Individual> population) {
+        if (Math.max(1, search.config().parallelism()) == 1) {
+            for (Individual individual : population) {
+                if (individual.layout == null) {
+                    individual.layout = search.evaluate(individual.order, individual.variants, false);
+                }
+            }
+            return;
+        }
+        List<CompletableFuture<ScoredLayout>> futures = new ArrayList<>(population.size());
+        for (Individual individual : population) {
+            futures.add(individual.layout != null ? CompletableFuture.completedFuture(individual.layout)
+                : CompletableFuture.supplyAsync(
+                    () -> search.evaluate(individual.order, individual.variants, false), search.executor()));
+        }
+        try {
+            for (int i = 0; i < population.size(); i++) {
+                population.get(i).layout = futures.get(i).join();
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(false));
+        }
+    }
+
+    /**
+     * Binary tournament on a population sorted by score.
+     */
+    private static Individual select(List<Individual> population, Random random) {
+        return population.get(Math.min(random.nextInt(population.size()), random.nextInt(population.size())));
+    }
+
+    /**
+     * Takes the order of {@code first} up to a random cut and the remaining
+     * parts in the order of {@code second}; each part keeps the rotation of
+     * the parent it was taken from.
+     */
+    private static Individual crossover(Individual first, Individual second, Random random) {
+        int n = first.order.length;
+        int cut = n > 1 ? 1 + random.nextInt(n - 1) : n;
+        int[] order = new int[n];
+        int[] variants = second.variants.clone();
+        boolean[] taken = new boolean[n];
+        for (int i = 0; i < cut; i++) {
+            int part = first.order[i];
+            order[i] = part;
+            variants[part] = first.variants[part];
+            taken[part] = true;
+        }
+        int k = cut;
+        for (int part : second.order) {
+            if (!taken[part]) {
+                order[k++] = part;
+            }
+        }
+        return new Individual(order, variants);
+    }
+
+    private static Individual mutate(NestingSearch search, Individual parent, Random random) {
+        int[] order = parent.order.clone();
+        int[] variants = parent.variants.clone();
+        for (int i = 0; i < order.length; i++) {
+            if (i + 1 < order.length && random.nextDouble() < MUTATION_RATE) {
+                int swap = order[i];
+                order[i] = order[i + 1];
+                order[i + 1] = swap;
+            }
+            if (random.nextDouble() < MUTATION_RATE) {
+                int part = order[i];
+                variants[part] = random.nextInt(search.shape(part).variantCount());
+            }
+        }
+        return new Individual(order, variants);
+    }
+
+    private static final class Individual {
+        private final int[] order;
+        private final int[] variants;
+        private ScoredLayout layout;
+
+        private Individual(int[] order, int[] variants) {
+            this.order = order;
+            this.variants = variants;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.nestingapp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+
+/**
+ * Persistent, append-only store of computed geometries such as NFPs and part
+ * variant tables, so work survives restarts. Each record holds a 128-bit
+ * {@link Digest} of its key and the geometries in WKB; records end with a
+ * CRC32, and a torn record left by a crash is cut off when the store is
+ * opened. The file is memory-mapped for reads and the in-memory index maps
+ * digests to record offsets. Writes are appended under a lock; the mapping
+ * grows ahead of them in doubling steps, so reads never take the lock or
+ * remap and one store is shared by all concurrent jobs. An exclusive file
+ * lock keeps other processes out. Once {@code maxBytes} is reached new
+ * records are dropped and existing ones are still served.
+ */
+final class GeometryStore implements Closeable {
+
+    private static final int MAGIC = 0x4E455354;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    /** Length, digest and geometry count in front of the geometries. */
+    private static final int RECORD_HEAD_BYTES = 4 + 16 + 4;
+    /** Smallest step by which the mapping grows. */
+    private static final long MIN_GROWTH = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final long maxBytes;
+    private final Map<Digest, Long> index = new ConcurrentHashMap<>();
+    private long end;
+    private volatile MappedByteBuffer mapped;
+
+    private GeometryStore(Path file, FileChannel channel, FileLock lock, long maxBytes) {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the store at {@code file}, creating it if needed, and indexes its
+     * records.
+     *
+     * @throws IOException if the file cannot be opened, is not a store, or is
+     *         in use by another process
+     */
+    static GeometryStore open(Path file, long maxBytes) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Store " + file + " is in use");
+            }
+            // a single mapping addresses at most 2 GB
+            GeometryStore store = new GeometryStore(file, channel, lock, Math.min(maxBytes, Integer.MAX_VALUE));
+            store.load();
+            return store;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private void load() throws IOException {
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+        }
+        map();
+        ByteBuffer buffer = mapped.duplicate();
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a geometry store");
+        }
+        long position = HEADER_BYTES;
+        while (position < buffer.limit()) {
+            Digest digest = check(buffer, (int) position);
+            if (digest == null) {
+                break;
+            }
+            index.put(digest, position);
+            position += 4 + buffer.getInt((int) position) + 4;
+        }
+        end = position;
+        if (end < channel.size()) {
+            channel.truncate(end);
+            map();
+        }
+    }
+
+    /** Returns the digest of the complete, intact record at {@code position}, or {@code null}. */
+    private static Digest check(ByteBuffer buffer, int position) {
+        if (position + 4 > buffer.limit()) {
+            return null;
+        }
+        int length = buffer.getInt(position);
+        if (length < RECORD_HEAD_BYTES - 4 || (long) position + 4 + length + 4 > buffer.limit()) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + 4, length));
+        if ((int) crc.getValue() != buffer.getInt(position + 4 + length)) {
+            return null;
+        }
+        return new Digest(buffer.getLong(position + 4), buffer.getLong(position + 12));
+    }
+
+    private void map() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    /**
+     * Makes sure the mapping covers {@code required} bytes, doubling it when
+     * it does not. The file is extended with zeros to the mapped size; they
+     * read as a torn record and are cut off on close, or when the store is
+     * opened again after a crash.
+     */
+    private void reserve(long required) throws IOException {
+        if (required <= mapped.limit()) {
+            return;
+        }
+        long capacity = Math.min(maxBytes, Math.max(required, Math.max(2L * mapped.limit(), MIN_GROWTH)));
+        if (channel.size() < capacity) {
+            channel.write(ByteBuffer.allocate(1), capacity - 1);
+        }
+        map();
+    }
+
+    /**
+     * Geometries stored under {@code digest}, or {@code null} if there are
+     * none.
+     */
+    List<Geometry> get(Digest digest) {
+        Long offset = index.get(digest);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            // records are indexed only once the mapping covers them
+            return read(mapped.duplicate(), offset.intValue());
+        } catch (ParseException | BufferUnderflowException ex) {
+            return null;
+        }
+    }
+
+    private static List<Geometry> read(ByteBuffer buffer, int position) throws ParseException {
+        buffer.position(position + RECORD_HEAD_BYTES);
+        int count = buffer.getInt(position + 20);
+        List<Geometry> geometries = new ArrayList<>(count);
+        WKBReader reader = new WKBReader(GeometryUtils.factory());
+        for (int i = 0; i < count; i++) {
+            byte[] wkb = new byte[buffer.getInt()];
+            buffer.get(wkb);
+            geometries.add(reader.read(wkb));
+        }
+        return geometries;
+    }
+
+    /**
+     * Appends {@code geometries} under {@code digest} unless the digest is
+     * already present or the store is full. I/O errors leave the store as it
+     * was.
+     */
+    synchronized void put(Digest digest, List<Geometry> geometries) {
+        if (index.containsKey(digest)) {
+            return;
+        }
+        WKBWriter writer = new WKBWriter();
+        List<byte[]> encoded = new ArrayList<>(geometries.size());
+        int length = RECORD_HEAD_BYTES - 4;
+        for (Geometry g : geometries) {
+            byte[] wkb = writer.write(g);
+            encoded.add(wkb);
+            length += 4 + wkb.length;
+        }
+        if (end + 4 + length + 4 > maxBytes) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+        record.putInt(length).putLong(digest.high()).putLong(digest.low()).putInt(encoded.size());
+        for (byte[] wkb : encoded) {
+            record.putInt(wkb.length).put(wkb);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, length);
+        record.putInt((int) crc.getValue()).flip();
+        try {
+            reserve(end + record.remaining());
+            long position = end;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            index.put(digest, end);
+            end = position;
+        } catch (IOException ex) {
+            // keep serving the records written so far
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            // drop the zeros reserved ahead of the records
+            channel.truncate(end);
+            channel.force(false);
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * 128-bit SHA-256 prefix of a record key: a record kind followed by key
+     * values, such as the {@link ShapeKey}s of an NFP pair.
+     */
+    record Digest(long high, long low) {
+
+        static Builder builder(byte kind) {
+            return new Builder(kind);
+        }
+
+        static final class Builder {
+            private final MessageDigest sha;
+            private final ByteBuffer scratch = ByteBuffer.allocate(8);
+
+            private Builder(byte kind) {
+                try {
+                    sha = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                sha.update(kind);
+            }
+
+            Builder add(long value) {
+                sha.update(scratch.clear().putLong(value).array());
+                return this;
+            }
+
+            Builder add(double value) {
+                return add(Double.doubleToLongBits(value));
+            }
+
+            Builder add(String value) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                add(bytes.length);
+                sha.update(bytes);
+                return this;
+            }
+
+            Builder add(long[] values) {
+                ByteBuffer bytes = ByteBuffer.allocate(8 * values.length + 8).putLong(values.length);
+                for (long value : values) {
+                    bytes.putLong(value);
+                }
+                sha.update(bytes.array());
+                return this;
+            }
+
+            Builder add(ShapeKey key) {
+                key.update(this);
+                return this;
+            }
+
+            Digest build() {
+                ByteBuffer hash = ByteBuffer.wrap(sha.digest());
+                return new Digest(hash.getLong(), hash.getLong());
+            }
+        }
+    }
+}
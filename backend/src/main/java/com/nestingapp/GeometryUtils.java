@@ -3,10 +3,16 @@ package com.nestingapp;
 import java.util.List;
 
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
 import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.operation.buffer.BufferOp;
+import org.locationtech.jts.operation.buffer.BufferParameters;
+import org.locationtech.jts.precision.GeometryPrecisionReducer;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
 
 /**
  * Utility helpers for geometry operations. Provides basic polygon creation,
@@ -14,7 +20,13 @@ import org.locationtech.jts.geom.util.AffineTransformation;
  * using the JTS topology suite.
  */
 public final class GeometryUtils {
+    /** Tolerance used when comparing computed coordinates against bounds. */
+    public static final double EPSILON = 1e-9;
+
     private static final GeometryFactory FACTORY = new GeometryFactory();
+    private static final NoFitPolygonEngine NFP_ENGINE = new ConvolutionNfpEngine();
+    private static final BufferParameters MITRE = new BufferParameters(
+        BufferParameters.DEFAULT_QUADRANT_SEGMENTS, BufferParameters.CAP_FLAT, BufferParameters.JOIN_MITRE, 2);
 
     private GeometryUtils() {
         // utility class
@@ -51,31 +63,30 @@ public final class GeometryUtils {
     }
 
     /**
-     * Computes the Minkowski sum of the two geometries by translating the
-     * second geometry to every vertex of the first and unioning the results.
-     * This is a lightweight approximation that works well for convex parts and
-     * is sufficient for our NFP based placement search.
+     * Returns the shared {@link NoFitPolygonEngine} used for Minkowski sums and
+     * NFP generation.
+     */
+    public static NoFitPolygonEngine nfpEngine() {
+        return NFP_ENGINE;
+    }
+
+    /**
+     * Computes the Minkowski sum of the two geometries using the shared
+     * {@link NoFitPolygonEngine}. Parts with holes are summed by reduced
+     * convolution, other concave parts through convex decomposition.
      */
     public static Geometry minkowskiSum(Geometry a, Geometry b) {
-        Geometry sum = emptyGeometry();
-        for (Coordinate ca : a.getCoordinates()) {
-            AffineTransformation move = AffineTransformation.translationInstance(ca.x, ca.y);
-            Geometry translated = move.transform(b);
-            sum = sum.union(translated);
-        }
-        return sum;
+        return NFP_ENGINE.minkowskiSum(a, b);
     }
 
     /**
      * Creates the no-fit polygon of {@code base} and {@code moving}. The moving
      * geometry is mirrored around the origin before computing the Minkowski
-     * sum, yielding the feasible region of translation vectors where the two
-     * parts touch but do not overlap.
+     * sum, yielding the region of translation vectors for which the two parts
+     * overlap; its boundary is where they touch.
      */
     public static Geometry noFitPolygon(Geometry base, Geometry moving) {
-        AffineTransformation mirror = AffineTransformation.scaleInstance(-1, -1);
-        Geometry reversed = mirror.transform(moving);
-        return minkowskiSum(base, reversed);
+        return NFP_ENGINE.noFitPolygon(base, moving);
     }
 
     /**
@@ -86,6 +97,26 @@ public final class GeometryUtils {
         return geometry.buffer(spacing);
     }
 
+    /**
+     * Simplifies an outline within {@code tolerance} while preserving its
+     * topology and grows the result by {@code tolerance + margin} with mitred
+     * corners. The result has far fewer vertices than a dense outline but
+     * still covers it, with {@code margin} to spare for later rounding.
+     */
+    public static Geometry simplifyOutward(Geometry geometry, double tolerance, double margin) {
+        Geometry simplified = TopologyPreservingSimplifier.simplify(geometry, tolerance);
+        return BufferOp.bufferOp(simplified, tolerance + margin, MITRE);
+    }
+
+    /**
+     * Snaps all coordinates to a grid with the given cell size using snap
+     * rounding, which keeps polygons valid and removes features thinner than
+     * a cell. Vertices move by at most half a cell diagonal.
+     */
+    public static Geometry snapToGrid(Geometry geometry, double gridSize) {
+        return GeometryPrecisionReducer.reduce(geometry, new PrecisionModel(1 / gridSize));
+    }
+
     /**
      * Rotates the geometry by the given angle in degrees around the origin.
      */
@@ -95,6 +126,23 @@ public final class GeometryUtils {
         return rotation.transform(geometry);
     }
 
+    /**
+     * Computes the inner-fit rectangle of a part inside a sheet: the range of
+     * translations that keep the part's envelope within the sheet's envelope.
+     * For rectangular sheets this is the exact inner-fit polygon. Returns a
+     * null envelope if the part is larger than the sheet.
+     */
+    public static Envelope innerFitRectangle(Envelope sheet, Envelope part) {
+        double minX = sheet.getMinX() - part.getMinX();
+        double minY = sheet.getMinY() - part.getMinY();
+        double maxX = sheet.getMaxX() - part.getMaxX();
+        double maxY = sheet.getMaxY() - part.getMaxY();
+        if (sheet.isNull() || part.isNull() || maxX < minX - EPSILON || maxY < minY - EPSILON) {
+            return new Envelope();
+        }
+        return new Envelope(minX, Math.max(minX, maxX), minY, Math.max(minY, maxY));
+    }
+
     /**
      * Creates a rectangular material sheet polygon starting at the origin.
      */
@@ -0,0 +1,70 @@
+package com.nestingapp;
+
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Running bounding box of a layout. Candidate positions are scored as the
+ * area of this box merged with the candidate's translated envelope, which is
+ * O(1) and allocation-free instead of rebuilding a geometry collection of the
+ * whole layout for every candidate.
+ */
+final class LayoutEnvelope {
+
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates the envelope of all geometries in {@code geoms}.
+     */
+    static LayoutEnvelope of(List<Geometry> geoms) {
+        LayoutEnvelope layout = new LayoutEnvelope();
+        for (Geometry g : geoms) {
+            layout.expandToInclude(g.getEnvelopeInternal());
+        }
+        return layout;
+    }
+
+    void expandToInclude(Envelope env) {
+        if (env.isNull()) {
+            return;
+        }
+        minX = Math.min(minX, env.getMinX());
+        minY = Math.min(minY, env.getMinY());
+        maxX = Math.max(maxX, env.getMaxX());
+        maxY = Math.max(maxY, env.getMaxY());
+    }
+
+    boolean isEmpty() {
+        return minX > maxX;
+    }
+
+    double area() {
+        return isEmpty() ? 0 : (maxX - minX) * (maxY - minY);
+    }
+
+    /**
+     * Area of the layout box after adding {@code env} translated by
+     * ({@code dx}, {@code dy}).
+     */
+    double areaWith(Envelope env, double dx, double dy) {
+        if (env.isNull()) {
+            return area();
+        }
+        double x0 = env.getMinX() + dx;
+        double y0 = env.getMinY() + dy;
+        double x1 = env.getMaxX() + dx;
+        double y1 = env.getMaxY() + dy;
+        if (!isEmpty()) {
+            x0 = Math.min(x0, minX);
+            y0 = Math.min(y0, minY);
+            x1 = Math.max(x1, maxX);
+            y1 = Math.max(y1, maxY);
+        }
+        return (x1 - x0) * (y1 - y0);
+    }
+}
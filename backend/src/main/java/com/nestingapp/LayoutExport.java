@@ -0,0 +1,366 @@
+package com.nestingapp;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the real outlines of a nested layout: every input part rotated and
+ * moved to where the search placed its buffered outline. Parts are
+ * transformed and written one at a time straight to the output stream, so an
+ * export needs no memory beyond the layout itself however many parts and
+ * sheets it has. In SVG and DXF the sheets are drawn side by side along x,
+ * {@link #SHEET_GAP} of the sheet width apart.
+ *
+ * <p>The {@code bin} format is a big-endian stream: the int {@link #MAGIC}, a
+ * short version, sheet width and height as doubles, the int sheet and placed
+ * part counts, then per placed part its int input index and sheet, its
+ * rotation as a double and its id in modified UTF-8, followed by its
+ * polygons. A polygon is an int ring count and per ring an int vertex count,
+ * the first vertex as two doubles and the others as float offsets from it,
+ * without the closing vertex. The stream ends with the int count of unplaced
+ * parts and their indices and ids.
+ */
+final class LayoutExport {
+
+    /** Start of the {@code bin} format, {@code "NLAY"}. */
+    static final int MAGIC = 0x4E4C4159;
+    static final short VERSION = 1;
+    /** Space between sheets relative to the sheet width. */
+    static final double SHEET_GAP = 0.1;
+
+    private static final JsonFactory JSON = new JsonFactory()
+        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    enum Format {
+        SVG("svg", "image/svg+xml"),
+        DXF("dxf", "application/dxf"),
+        JSONL("jsonl", "application/x-ndjson"),
+        BIN("bin", "application/octet-stream");
+
+        private final String extension;
+        private final String mediaType;
+
+        Format(String extension, String mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        String extension() {
+            return extension;
+        }
+
+        String mediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Format with the given name, ignoring case.
+         *
+         * @throws IllegalArgumentException if the format is unknown
+         */
+        static Format named(String name) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + name);
+        }
+    }
+
+    private final NestingLayout layout;
+    private final List<Geometry> parts;
+    private final List<String> ids;
+    private final List<PartShape> shapes;
+    private final Polygon sheet;
+    private final Envelope sheetEnv;
+
+    LayoutExport(NestingLayout layout, List<Geometry> parts, List<String> ids, List<PartShape> shapes,
+                 Polygon sheet) {
+        this.layout = layout;
+        this.parts = parts;
+        this.ids = ids;
+        this.shapes = shapes;
+        this.sheet = sheet;
+        this.sheetEnv = sheet.getEnvelopeInternal();
+    }
+
+    /**
+     * Input part of {@code placed} in its position on the sheet.
+     */
+    Geometry outline(PlacedPart placed) {
+        PartShape shape = shapes.get(placed.index());
+        int variant = shape.variantOf(placed.rotation());
+        if (variant < 0) {
+            throw new IllegalStateException("No variant of part " + placed.index() + " at " + placed.rotation());
+        }
+        Geometry part = parts.get(placed.index());
+        return shape.placement(part, variant, placed.geometry()).transform(part);
+    }
+
+    /**
+     * Writes the layout in {@code format} and flushes {@code out} without
+     * closing it.
+     */
+    void write(Format format, OutputStream out) throws IOException {
+        switch (format) {
+            case SVG -> writeSvg(out);
+            case DXF -> writeDxf(out);
+            case JSONL -> writeJsonLines(out);
+            case BIN -> writeBinary(out);
+        }
+    }
+
+    private double sheetOffset(int sheetIndex) {
+        return sheetIndex * sheetEnv.getWidth() * (1 + SHEET_GAP);
+    }
+
+    private void writeSvg(OutputStream stream) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        int sheets = Math.max(1, layout.sheets().size());
+        double width = sheetOffset(sheets - 1) + sheetEnv.getWidth();
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\""
+            + sheetEnv.getHeight() + "\" viewBox=\"" + sheetEnv.getMinX() + " " + sheetEnv.getMinY() + " "
+            + width + " " + sheetEnv.getHeight() + "\">\n");
+        for (int s = 0; s < layout.sheets().size(); s++) {
+            // flip y so the drawing keeps the sheet's y-up orientation
+            out.write("<g id=\"sheet-" + s + "\" transform=\"matrix(1 0 0 -1 " + sheetOffset(s) + " "
+                + (sheetEnv.getMinY() + sheetEnv.getMaxY()) + ")\" fill=\"none\" stroke=\"black\">\n");
+            out.write("<path class=\"sheet\" d=\"");
+            writeSvgPath(out, sheet);
+            out.write("\"/>\n");
+            for (PlacedPart placed : layout.sheets().get(s)) {
+                out.write("<path class=\"part\" data-part=\"" + placed.index() + "\" data-id=\""
+                    + escapeXml(ids.get(placed.index())) + "\" fill-rule=\"evenodd\" d=\"");
+                writeSvgPath(out, outline(placed));
+                out.write("\"/>\n");
+            }
+            out.write("</g>\n");
+        }
+        out.write("</svg>\n");
+        out.flush();
+    }
+
+    private static void writeSvgPath(Writer out, Geometry geometry) throws IOException {
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon) {
+                writeSvgRing(out, polygon.getExteriorRing());
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    writeSvgRing(out, polygon.getInteriorRingN(h));
+                }
+            }
+        }
+    }
+
+    private static void writeSvgRing(Writer out, LineString ring) throws IOException {
+        CoordinateSequence seq = ring.getCoordinateSequence();
+        for (int i = 0; i < seq.size() - 1; i++) {
+            out.write(i == 0 ? "M" : "L");
+            out.write(seq.getX(i) + " " + seq.getY(i));
+        }
+        out.write("Z");
+    }
+
+    private static String escapeXml(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Writes a DXF entities section with one closed LWPOLYLINE per ring, the
+     * sheets on layer {@code SHEET} and the parts on layer {@code PARTS}.
+     */
+    private void writeDxf(OutputStream stream) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.US_ASCII));
+        out.write("0\nSECTION\n2\nENTITIES\n");
+        for (int s = 0; s < layout.sheets().size(); s++) {
+            double offset = sheetOffset(s);
+            writeDxfPolylines(out, sheet, "SHEET", offset);
+            for (PlacedPart placed : layout.sheets().get(s)) {
+                writeDxfPolylines(out, outline(placed), "PARTS", offset);
+            }
+        }
+        out.write("0\nENDSEC\n0\nEOF\n");
+        out.flush();
+    }
+
+    private static void writeDxfPolylines(Writer out, Geometry geometry, String layer, double offset)
+            throws IOException {
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon) {
+                writeDxfPolyline(out, polygon.getExteriorRing(), layer, offset);
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    writeDxfPolyline(out, polygon.getInteriorRingN(h), layer, offset);
+                }
+            }
+        }
+    }
+
+    private static void writeDxfPolyline(Writer out, LineString ring, String layer, double offset)
+            throws IOException {
+        CoordinateSequence seq = ring.getCoordinateSequence();
+        out.write("0\nLWPOLYLINE\n8\n" + layer + "\n90\n" + (seq.size() - 1) + "\n70\n1\n");
+        for (int i = 0; i < seq.size() - 1; i++) {
+            out.write("10\n" + (seq.getX(i) + offset) + "\n20\n" + seq.getY(i) + "\n");
+        }
+    }
+
+    /**
+     * Writes one JSON object per line: a header with the sheet size, the
+     * sheet and part counts and the ids of unplaced parts, then one line per
+     * placed part with its input index, id, sheet, rotation and outline as
+     * GeoJSON {@code MultiPolygon} coordinates in sheet coordinates.
+     */
+    private void writeJsonLines(OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("sheet");
+            json.writeNumberField("width", sheetEnv.getWidth());
+            json.writeNumberField("height", sheetEnv.getHeight());
+            json.writeEndObject();
+            json.writeNumberField("sheets", layout.sheets().size());
+            json.writeNumberField("parts", placedCount());
+            json.writeArrayFieldStart("unplaced");
+            for (int index : layout.unplaced()) {
+                json.writeString(ids.get(index));
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+            for (int s = 0; s < layout.sheets().size(); s++) {
+                for (PlacedPart placed : layout.sheets().get(s)) {
+                    json.writeStartObject();
+                    json.writeNumberField("part", placed.index());
+                    json.writeStringField("id", ids.get(placed.index()));
+                    json.writeNumberField("sheet", s);
+                    json.writeNumberField("rotation", placed.rotation());
+                    json.writeFieldName("coordinates");
+                    writeJsonPolygons(json, outline(placed));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeJsonPolygons(JsonGenerator json, Geometry geometry) throws IOException {
+        json.writeStartArray();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon polygon) {
+                json.writeStartArray();
+                writeJsonRing(json, polygon.getExteriorRing());
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    writeJsonRing(json, polygon.getInteriorRingN(h));
+                }
+                json.writeEndArray();
+            }
+        }
+        json.writeEndArray();
+    }
+
+    private static void writeJsonRing(JsonGenerator json, LineString ring) throws IOException {
+        CoordinateSequence seq = ring.getCoordinateSequence();
+        json.writeStartArray();
+        for (int i = 0; i < seq.size(); i++) {
+            json.writeStartArray();
+            json.writeNumber(seq.getX(i));
+            json.writeNumber(seq.getY(i));
+            json.writeEndArray();
+        }
+        json.writeEndArray();
+    }
+
+    private void writeBinary(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeDouble(sheetEnv.getWidth());
+        out.writeDouble(sheetEnv.getHeight());
+        out.writeInt(layout.sheets().size());
+        out.writeInt(placedCount());
+        for (int s = 0; s < layout.sheets().size(); s++) {
+            for (PlacedPart placed : layout.sheets().get(s)) {
+                out.writeInt(placed.index());
+                out.writeInt(s);
+                out.writeDouble(placed.rotation());
+                out.writeUTF(ids.get(placed.index()));
+                Geometry outline = outline(placed);
+                int polygons = 0;
+                for (int i = 0; i < outline.getNumGeometries(); i++) {
+                    if (outline.getGeometryN(i) instanceof Polygon) {
+                        polygons++;
+                    }
+                }
+                out.writeInt(polygons);
+                for (int i = 0; i < outline.getNumGeometries(); i++) {
+                    if (outline.getGeometryN(i) instanceof Polygon polygon) {
+                        out.writeInt(1 + polygon.getNumInteriorRing());
+                        writeBinaryRing(out, polygon.getExteriorRing());
+                        for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                            writeBinaryRing(out, polygon.getInteriorRingN(h));
+                        }
+                    }
+                }
+            }
+        }
+        out.writeInt(layout.unplaced().size());
+        for (int index : layout.unplaced()) {
+            out.writeInt(index);
+            out.writeUTF(ids.get(index));
+        }
+        out.flush();
+    }
+
+    private static void writeBinaryRing(DataOutputStream out, LineString ring) throws IOException {
+        CoordinateSequence seq = ring.getCoordinateSequence();
+        int count = Math.max(0, seq.size() - 1);
+        out.writeInt(count);
+        if (count == 0) {
+            return;
+        }
+        double x0 = seq.getX(0);
+        double y0 = seq.getY(0);
+        out.writeDouble(x0);
+        out.writeDouble(y0);
+        for (int i = 1; i < count; i++) {
+            out.writeFloat((float) (seq.getX(i) - x0));
+            out.writeFloat((float) (seq.getY(i) - y0));
+        }
+    }
+
+    private int placedCount() {
+        int count = 0;
+        for (List<PlacedPart> placed : layout.sheets()) {
+            count += placed.size();
+        }
+        return count;
+    }
+}
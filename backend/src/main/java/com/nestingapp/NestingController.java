@@ -1,119 +1,248 @@
 package com.nestingapp;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * REST endpoints for nesting operations. These APIs allow the frontend to
  * upload parts, run the nesting algorithm and export the resulting layout.
+ * Nesting runs asynchronously: {@code POST /api/nest} returns a job id whose
+ * progress is available from {@code /api/status/{id}} and whose layout is
+ * fetched from {@code /api/result/{id}} once completed, or exported from
+ * {@code /api/export/{id}}. {@code POST /api/nest/{id}/update} re-nests a
+ * layout incrementally after parts are added or removed.
  */
 @RestController
 @RequestMapping("/api")
 public class NestingController {
 
-    private final NestingService nestingService;
+    private final NestingJobService jobService;
+    private final PartImportService importService;
+    private final double minRotationStep;
+    private final int maxRotations;
+    private final int maxQuantity;
+    private final int maxParts;
 
-    public NestingController(NestingService nestingService) {
-        this.nestingService = nestingService;
+    /**
+     * Controller rejecting rotation steps below {@code minRotationStep}
+     * degrees, other than 0 for no rotation, and lists of more than
+     * {@code maxRotations} allowed angles for a part, which would make every
+     * part carry that many variants. Requests for more than
+     * {@code maxQuantity} copies of a part or more than {@code maxParts}
+     * parts in total are rejected as well.
+     */
+    public NestingController(NestingJobService jobService, PartImportService importService,
+                             @Value("${nesting.limits.min-rotation-step:1}") double minRotationStep,
+                             @Value("${nesting.limits.max-rotations:360}") int maxRotations,
+                             @Value("${nesting.limits.max-quantity:1000}") int maxQuantity,
+                             @Value("${nesting.limits.max-parts:10000}") int maxParts) {
+        this.jobService = jobService;
+        this.importService = importService;
+        this.minRotationStep = minRotationStep;
+        this.maxRotations = maxRotations;
+        this.maxQuantity = maxQuantity;
+        this.maxParts = maxParts;
     }
 
     @PostMapping("/nest")
-    public NestingResult nestFiles(@RequestParam("files") MultipartFile[] files,
-                                   @RequestParam("config") String configJson) throws Exception {
+    public JobResponse nestFiles(@RequestParam("files") MultipartFile[] files,
+                                 @RequestParam("config") String configJson) throws Exception {
         ObjectMapper mapper = new ObjectMapper();
         NestingConfig config = mapper.readValue(configJson, NestingConfig.class);
+        validate(config);
 
+        List<ImportedPart> imported = importService.importFiles(files);
+        checkPartCount(imported, config, 0);
+        List<Geometry> parts = new ArrayList<>(imported.size());
+        List<String> ids = new ArrayList<>(imported.size());
+        for (ImportedPart part : imported) {
+            // copies share the geometry; the search detects them as one shape
+            for (int copy = config.quantity(part.id()); copy > 0; copy--) {
+                parts.add(part.geometry());
+                ids.add(part.id());
+            }
+        }
+
+        Polygon sheet = GeometryUtils.createSheet(config.sheetWidth(), config.sheetHeight());
+        NestingJob job = jobService.submit(parts, ids, sheet, config);
+        return new JobResponse(job.id(), job.state().name().toLowerCase());
+    }
+
+    /**
+     * Rejects configurations the search cannot run with or that would make
+     * it unreasonably expensive.
+     *
+     * @throws ResponseStatusException with 400 for an invalid configuration
+     */
+    private void validate(NestingConfig config) {
+        if (config.quantities() != null && config.quantities().values().stream()
+                .anyMatch(quantity -> quantity == null || quantity < 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantities must not be negative");
+        }
+        if (config.quantities() != null && config.quantities().values().stream()
+                .anyMatch(quantity -> quantity > maxQuantity)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxQuantity + " copies are allowed per part");
+        }
+        if (!(config.tolerance() >= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tolerance must not be negative");
+        }
+        if (config.rotationStep() != 0 && !(config.rotationStep() >= minRotationStep)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Rotation step must be 0 or at least " + minRotationStep + " degrees");
+        }
+        if (config.rotations() != null) {
+            for (List<Double> angles : config.rotations().values()) {
+                if (angles == null) {
+                    continue;
+                }
+                if (angles.size() > maxRotations) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "At most " + maxRotations + " rotations are allowed per part");
+                }
+                if (angles.stream().anyMatch(angle -> angle == null || !Double.isFinite(angle))) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rotations must be finite angles");
+                }
+            }
+        }
+        try {
+            NestingStrategy.named(config.strategy());
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Rejects requests that would nest more than {@code maxParts} parts,
+     * counting {@code present} parts already in the layout and the copies
+     * of every imported part.
+     *
+     * @throws ResponseStatusException with 400 if there are too many parts
+     */
+    private void checkPartCount(List<ImportedPart> imported, NestingConfig config, int present) {
+        long total = present;
+        for (ImportedPart part : imported) {
+            total += config.quantity(part.id());
+        }
+        if (total > maxParts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxParts + " parts can be nested per request");
+        }
+    }
+
+    /**
+     * Re-nests the layout of job {@code id} after an order change: one copy
+     * per {@code remove} entry is taken out and the parts of {@code files}
+     * are added, in the quantities of the original configuration. Unaffected
+     * placements stay where they are, so the returned job usually completes
+     * in a fraction of the time of a new search.
+     */
+    @PostMapping("/nest/{id}/update")
+    public JobResponse updateLayout(@PathVariable("id") String id,
+                                    @RequestParam(name = "files", required = false) MultipartFile[] files,
+                                    @RequestParam(name = "remove", required = false) List<String> remove)
+            throws Exception {
+        NestingJob base = jobService.get(id);
+        NestingConfig config = base.config();
         List<Geometry> parts = new ArrayList<>();
         List<String> ids = new ArrayList<>();
-        for (MultipartFile file : files) {
-            String name = file.getOriginalFilename();
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-            Geometry geom = null;
-            if (name != null && name.toLowerCase().endsWith(".svg")) {
-                geom = new SvgParser().parseToGeometry(content);
-            } else if (name != null && name.toLowerCase().endsWith(".dxf")) {
-                geom = new DxfParser().parse(content);
-            }
-            if (geom != null) {
-                for (int i = 0; i < geom.getNumGeometries(); i++) {
-                    parts.add(geom.getGeometryN(i));
-                    ids.add(name);
+        if (files != null && files.length > 0) {
+            List<ImportedPart> imported = importService.importFiles(files);
+            checkPartCount(imported, config, base.parts().size());
+            for (ImportedPart part : imported) {
+                for (int copy = config.quantity(part.id()); copy > 0; copy--) {
+                    parts.add(part.geometry());
+                    ids.add(part.id());
                 }
             }
         }
+        NestingJob job = jobService.update(id, parts, ids, remove != null ? remove : List.of());
+        return new JobResponse(job.id(), job.state().name().toLowerCase());
+    }
 
-        Polygon sheet = GeometryUtils.createSheet(config.sheetWidth(), config.sheetHeight());
-        List<Geometry> placed = nestingService.nestParts(
-                parts,
-                sheet,
-                config.spacing(),
-                config.rotationStep(),
-                config.maxNoImprovement());
-        List<Placement> placements = new ArrayList<>();
-        for (int i = 0; i < placed.size(); i++) {
-            Geometry g = placed.get(i);
-            Envelope env = g.getEnvelopeInternal();
-            placements.add(new Placement(ids.get(i), env.getMinX(), env.getMinY(), 0));
+    @GetMapping("/status/{id}")
+    public StatusResponse status(@PathVariable("id") String id) {
+        return jobService.get(id).status();
+    }
+
+    /**
+     * Layout of a completed job. With {@code partial=true} a running or
+     * stopped job returns the best layout found so far instead of a conflict,
+     * as long as one round has completed.
+     */
+    @GetMapping("/result/{id}")
+    public NestingResult result(@PathVariable("id") String id,
+                                @RequestParam(name = "partial", defaultValue = "false") boolean partial) {
+        NestingJob job = jobService.get(id);
+        NestingResult result = partial ? job.bestResult() : job.result();
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Job " + id + " is " + job.state().name().toLowerCase());
         }
-        return new NestingResult(placements, new SheetSpec(config.sheetWidth(), config.sheetHeight()));
+        return result;
     }
 
-    @GetMapping("/status")
-    public StatusResponse status() {
-        return new StatusResponse("completed", 100, "0s");
+    /**
+     * Streams layout improvements of a job as server-sent events: a
+     * {@code layout} event per improvement carrying the changed placements and
+     * a final {@code done} event with the job status. Stopping the job through
+     * {@code DELETE /api/nest/{id}} keeps the best layout streamed so far.
+     */
+    @GetMapping(path = "/stream/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable("id") String id) {
+        return jobService.stream(id);
     }
 
-    @PostMapping("/export")
-    public ResponseEntity<Resource> exportLayout(@RequestBody ExportRequest request) {
-        String format = request.format().toLowerCase();
-        String content;
-        if ("svg".equals(format)) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\">");
-            for (Placement p : request.layout().nestedParts()) {
-                sb.append("<rect x=\"").append(p.x()).append("\" y=\"")
-                  .append(p.y()).append("\" width=\"1\" height=\"1\"/>");
-            }
-            sb.append("</svg>");
-            content = sb.toString();
-        } else if ("dxf".equals(format)) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("0\nSECTION\n2\nENTITIES\n");
-            for (Placement p : request.layout().nestedParts()) {
-                sb.append("0\nCIRCLE\n8\n0\n10\n").append(p.x())
-                  .append("\n20\n").append(p.y()).append("\n40\n1\n");
-            }
-            sb.append("0\nENDSEC\n0\nEOF\n");
-            content = sb.toString();
-        } else {
-            return ResponseEntity.badRequest().build();
+    @DeleteMapping("/nest/{id}")
+    public StatusResponse cancel(@PathVariable("id") String id) {
+        return jobService.cancel(id).status();
+    }
+
+    /**
+     * Streams the real part outlines of a job's layout as {@code svg},
+     * {@code dxf}, {@code jsonl} or the compact {@code bin} format of
+     * {@link LayoutExport}. Parts are written to the response as they are
+     * transformed, so large layouts export in constant memory. With
+     * {@code partial=true} a running or stopped job exports its best layout
+     * so far.
+     */
+    @GetMapping("/export/{id}")
+    public ResponseEntity<StreamingResponseBody> exportLayout(
+            @PathVariable("id") String id,
+            @RequestParam(name = "format", defaultValue = "svg") String format,
+            @RequestParam(name = "partial", defaultValue = "false") boolean partial) {
+        LayoutExport.Format type;
+        try {
+            type = LayoutExport.Format.named(format);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
         }
-        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
-        MediaType type = "svg".equals(format) ? MediaType.APPLICATION_XML : MediaType.TEXT_PLAIN;
+        LayoutExport export = jobService.export(id, partial);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"nested_layout." + format + "\"")
-                .contentType(type)
-                .contentLength(bytes.length)
-                .body(new ByteArrayResource(bytes));
+                        "attachment; filename=\"nested_layout." + type.extension() + "\"")
+                .contentType(MediaType.parseMediaType(type.mediaType()))
+                .body(out -> export.write(type, out));
     }
 }
@@ -0,0 +1,424 @@
+package com.nestingapp;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * State of one asynchronous nesting request. The job receives progress from
+ * {@link NestingService} through the {@link NestingListener} callbacks and is
+ * read concurrently by the status endpoint, so progress fields are volatile
+ * and state transitions are atomic. Improvements are pushed to subscribed
+ * server-sent event streams as deltas against the previously pushed layout.
+ * Events are queued per stream and sent on a separate executor, so a slow
+ * client never holds up the search; a client more than
+ * {@link #MAX_PENDING_EVENTS} deltas behind gets the full layout instead.
+ */
+class NestingJob implements NestingListener {
+
+    enum State { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    /** Layout events queued for a stream before its backlog is replaced. */
+    static final int MAX_PENDING_EVENTS = 16;
+
+    private final String id;
+    private final List<Geometry> parts;
+    private final List<String> ids;
+    private final Polygon sheet;
+    private final NestingConfig config;
+    private final NestingLayout fixed;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+    private volatile Future<?> future;
+    private volatile boolean stopRequested;
+    private volatile int rounds;
+    private volatile int noImprovement;
+    private volatile long elapsedNanos;
+    private volatile double bestUtilisation;
+    private volatile NestingResult result;
+    private volatile NestingLayout layout;
+    private volatile NestingLayout best;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    // guarded by this
+    private final List<Stream> streams = new ArrayList<>();
+    private PartUpdate[] pushed;
+
+    NestingJob(String id, List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config) {
+        this(id, parts, ids, sheet, config, null);
+    }
+
+    /**
+     * Job that places the parts around those in {@code fixed}, a layout of
+     * some of {@code parts}, instead of searching from scratch, if not
+     * {@code null}.
+     */
+    NestingJob(String id, List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config,
+               NestingLayout fixed) {
+        this.id = id;
+        this.parts = parts;
+        this.ids = ids;
+        this.sheet = sheet;
+        this.config = config;
+        this.fixed = fixed;
+    }
+
+    /**
+     * Runs the search on the current worker thread, starting from
+     * {@code seed} if given, or re-nests around the fixed layout of an
+     * update, and records the outcome in {@code metrics}.
+     */
+    void run(NestingService service, NestingMetrics metrics, LayoutSeed seed) {
+        if (!state.compareAndSet(State.QUEUED, State.RUNNING)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            NestingLayout found = fixed != null ? service.renest(parts, ids, sheet, config, fixed, this)
+                : service.nestLayout(parts, ids, sheet, config, this, seed);
+            layout = found;
+            result = NestingJobService.toResult(found, parts, ids, sheet, config);
+            state.set(State.COMPLETED);
+        } catch (Throwable ex) {
+            // errors fail the job too, so it never stays running; they still
+            // reach the worker thread
+            error = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+            state.set(State.FAILED);
+            if (ex instanceof Error err) {
+                throw err;
+            }
+        } finally {
+            finishedAt = Instant.now();
+            closeStreams();
+            metrics.jobFinished(config.strategy(), state.get().name().toLowerCase(), System.nanoTime() - start,
+                result != null ? utilisation(result) : null);
+        }
+    }
+
+    /**
+     * Completes a queued job with a layout found earlier for the same
+     * request, without searching, and records it in {@code metrics} with
+     * outcome {@code cached}.
+     */
+    void restore(NestingLayout found, NestingMetrics metrics) {
+        if (!state.compareAndSet(State.QUEUED, State.RUNNING)) {
+            return;
+        }
+        long start = System.nanoTime();
+        onImprovement(found, NestingService.score(found.sheets(), sheet.getArea()));
+        layout = found;
+        result = NestingJobService.toResult(found, parts, ids, sheet, config);
+        state.set(State.COMPLETED);
+        finishedAt = Instant.now();
+        closeStreams();
+        metrics.jobFinished(config.strategy(), "cached", System.nanoTime() - start, utilisation(result));
+    }
+
+    /**
+     * The layout of a search that ran to its end, or {@code null} if the job
+     * failed, is unfinished or was stopped early.
+     */
+    NestingLayout completedLayout() {
+        return state.get() == State.COMPLETED && !stopRequested ? layout : null;
+    }
+
+    /** Placed part area over the area of the sheets used. */
+    private static Double utilisation(NestingResult result) {
+        if (result.sheets().isEmpty()) {
+            return null;
+        }
+        double sum = 0;
+        for (SheetUsage usage : result.sheets()) {
+            sum += usage.utilisation();
+        }
+        return sum / result.sheets().size();
+    }
+
+    /**
+     * Cancels a queued job or asks a running one to stop and keep its best
+     * layout so far.
+     */
+    void cancel() {
+        if (state.compareAndSet(State.QUEUED, State.CANCELLED)) {
+            finishedAt = Instant.now();
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            closeStreams();
+        } else if (state.get() == State.RUNNING) {
+            stopRequested = true;
+        }
+    }
+
+    @Override
+    public void onRound(int rounds, int noImprovement, long elapsedNanos) {
+        this.rounds = rounds;
+        this.noImprovement = noImprovement;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @Override
+    public void onImprovement(NestingLayout layout, double score) {
+        best = layout;
+        PartUpdate[] current = new PartUpdate[parts.size()];
+        double placedArea = 0;
+        for (int s = 0; s < layout.sheets().size(); s++) {
+            for (PlacedPart part : layout.sheets().get(s)) {
+                placedArea += parts.get(part.index()).getArea();
+                Placement placement = NestingJobService.placementOf(part, ids, s);
+                current[part.index()] = new PartUpdate(part.index(), placement.id(), placement.x(), placement.y(),
+                        placement.rotation(), placement.sheetIndex());
+            }
+        }
+        if (score > 0) {
+            bestUtilisation = placedArea / score;
+        }
+        publish(current);
+    }
+
+    /**
+     * Subscribes an event stream to this job, whose events are sent on
+     * {@code sender}. The stream first receives the full best layout found
+     * so far and then one delta per improvement; it is completed with a
+     * final {@code done} event when the job ends.
+     */
+    synchronized void subscribe(SseEmitter emitter, Executor sender) {
+        Stream stream = new Stream(emitter, sender);
+        streams.add(stream);
+        emitter.onCompletion(() -> unsubscribe(stream));
+        emitter.onTimeout(() -> unsubscribe(stream));
+        if (pushed != null) {
+            queue(stream, "layout", update(pushed, true), false);
+        }
+        if (finishedAt != null) {
+            queue(stream, "done", status(), true);
+            streams.remove(stream);
+        }
+    }
+
+    private synchronized void unsubscribe(Stream stream) {
+        streams.remove(stream);
+    }
+
+    private synchronized void publish(PartUpdate[] current) {
+        List<PartUpdate> changed = new ArrayList<>();
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != null && (pushed == null || !Objects.equals(current[i], pushed[i]))) {
+                changed.add(current[i]);
+            }
+        }
+        boolean full = pushed == null;
+        pushed = current;
+        LayoutUpdate delta = new LayoutUpdate(rounds, bestUtilisation, full, changed);
+        for (Stream stream : new ArrayList<>(streams)) {
+            queue(stream, "layout", delta, false);
+        }
+    }
+
+    private synchronized void closeStreams() {
+        StatusResponse finalStatus = status();
+        for (Stream stream : new ArrayList<>(streams)) {
+            queue(stream, "done", finalStatus, true);
+        }
+        streams.clear();
+    }
+
+    private LayoutUpdate update(PartUpdate[] placements, boolean full) {
+        List<PartUpdate> list = new ArrayList<>();
+        for (PartUpdate p : placements) {
+            if (p != null) {
+                list.add(p);
+            }
+        }
+        return new LayoutUpdate(rounds, bestUtilisation, full, list);
+    }
+
+    /**
+     * Queues an event for {@code stream} and starts sending if it is idle;
+     * {@code last} completes the stream after the event. Called with the
+     * lock held.
+     */
+    private void queue(Stream stream, String name, Object data, boolean last) {
+        if (!last && stream.pending.size() >= MAX_PENDING_EVENTS) {
+            // the client is behind; replace its backlog by the current layout
+            stream.pending.clear();
+            data = update(pushed, true);
+        }
+        stream.pending.add(new Event(name, data, last));
+        if (!stream.sending) {
+            stream.sending = true;
+            try {
+                stream.sender.execute(() -> drain(stream));
+            } catch (RejectedExecutionException ex) {
+                // shutting down; drop the stream
+                streams.remove(stream);
+                stream.pending.clear();
+                stream.sending = false;
+            }
+        }
+    }
+
+    /**
+     * Sends the queued events of {@code stream} in order, outside the lock.
+     */
+    private void drain(Stream stream) {
+        while (true) {
+            Event event;
+            synchronized (this) {
+                event = stream.pending.poll();
+                if (event == null) {
+                    stream.sending = false;
+                    return;
+                }
+            }
+            try {
+                stream.emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                if (event.last()) {
+                    stream.emitter.complete();
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // client went away; drop the stream
+                synchronized (this) {
+                    streams.remove(stream);
+                    stream.pending.clear();
+                    stream.sending = false;
+                }
+                stream.emitter.completeWithError(ex);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean stopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * Snapshot of the job's progress for the status endpoint. Progress and ETA
+     * follow the {@code maxNoImprovement} stopping rule: the search needs at
+     * least the remaining number of non-improving rounds before it ends. With
+     * a time limit the search is at least as far as the elapsed share of it.
+     */
+    StatusResponse status() {
+        State current = state.get();
+        int max = Math.max(1, config.maxNoImprovement());
+        int progress;
+        String eta;
+        if (current == State.QUEUED || current == State.RUNNING) {
+            int done = Math.min(noImprovement, max);
+            progress = current == State.QUEUED ? 0 : done * 100 / max;
+            long perRound = rounds > 0 ? elapsedNanos / rounds : 0;
+            long remaining = perRound * (max - done);
+            long limit = config.timeLimitMillis() * 1_000_000;
+            if (limit > 0 && current == State.RUNNING) {
+                progress = Math.max(progress, (int) Math.min(100, elapsedNanos * 100 / limit));
+                remaining = Math.min(remaining, Math.max(0, limit - elapsedNanos));
+            }
+            eta = Duration.ofNanos(remaining).toSeconds() + "s";
+        } else {
+            progress = 100;
+            eta = "0s";
+        }
+        return new StatusResponse(id, current.name().toLowerCase(), progress, eta, rounds, bestUtilisation, error);
+    }
+
+    String id() {
+        return id;
+    }
+
+    List<Geometry> parts() {
+        return parts;
+    }
+
+    List<String> ids() {
+        return ids;
+    }
+
+    Polygon sheet() {
+        return sheet;
+    }
+
+    NestingConfig config() {
+        return config;
+    }
+
+    State state() {
+        return state.get();
+    }
+
+    NestingResult result() {
+        return result;
+    }
+
+    /**
+     * The final result of a completed job, otherwise the best layout found so
+     * far, or {@code null} before the first round has completed.
+     */
+    NestingResult bestResult() {
+        NestingResult finished = result;
+        if (finished != null) {
+            return finished;
+        }
+        NestingLayout layout = best;
+        return layout != null ? NestingJobService.toResult(layout, parts, ids, sheet, config) : null;
+    }
+
+    /**
+     * The final layout, otherwise the best one found so far, or {@code null}
+     * before the first round has completed.
+     */
+    NestingLayout latestLayout() {
+        NestingLayout finished = layout;
+        return finished != null ? finished : best;
+    }
+
+    /**
+     * Export of the final layout, or with {@code partial} of the best layout
+     * found so far, or {@code null} if there is none yet.
+     */
+    LayoutExport export(NestingService service, boolean partial) {
+        NestingLayout exported = partial ? latestLayout() : layout;
+        return exported != null
+            ? new LayoutExport(exported, parts, ids, service.shapes(parts, ids, config), sheet)
+            : null;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /** Event stream of one subscriber; mutable state is guarded by the job. */
+    private static final class Stream {
+        private final SseEmitter emitter;
+        private final Executor sender;
+        private final Deque<Event> pending = new ArrayDeque<>();
+        private boolean sending;
+
+        private Stream(SseEmitter emitter, Executor sender) {
+            this.emitter = emitter;
+            this.sender = sender;
+        }
+    }
+
+    private record Event(String name, Object data, boolean last) {}
+}
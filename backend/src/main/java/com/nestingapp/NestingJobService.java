@@ -0,0 +1,263 @@
+package com.nestingapp;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs nesting requests asynchronously on a bounded worker pool. Jobs beyond
+ * the pool size wait in a bounded queue; when the queue is full new jobs are
+ * rejected. Finished jobs are kept for {@code nesting.jobs.retention} so their
+ * status and result can still be fetched. Layouts of completed searches are
+ * kept in a {@link ResultCache}: a repeated request completes at once with the
+ * cached layout, and one that only changes quantities or the sheet size
+ * starts its search from the layout of the earlier request.
+ */
+@Service
+public class NestingJobService {
+
+    private final NestingService nestingService;
+    private final NestingMetrics metrics;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService streamSenders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "nesting-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Duration retention;
+    private final Duration streamTimeout;
+    private final ResultCache results;
+    private final Map<String, NestingJob> jobs = new ConcurrentHashMap<>();
+
+    public NestingJobService(NestingService nestingService, NestingMetrics metrics,
+                             @Value("${nesting.jobs.workers:2}") int workerCount,
+                             @Value("${nesting.jobs.queue-capacity:32}") int queueCapacity,
+                             @Value("${nesting.jobs.retention:PT1H}") Duration retention,
+                             @Value("${nesting.jobs.stream-timeout:PT30M}") Duration streamTimeout,
+                             @Value("${nesting.cache.max-entries:256}") int cacheEntries,
+                             @Value("${nesting.cache.ttl:PT1H}") Duration cacheTtl,
+                             @Value("${nesting.cache.seed-searches:true}") boolean seedSearches) {
+        this.nestingService = nestingService;
+        this.metrics = metrics;
+        this.retention = retention;
+        this.streamTimeout = streamTimeout;
+        this.results = metrics.monitor(new ResultCache(cacheEntries, cacheTtl, seedSearches));
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "nesting-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a nesting job and returns it immediately. A request whose layout
+     * is cached returns a job that has already completed.
+     *
+     * @throws ResponseStatusException with 503 if the queue is full
+     */
+    NestingJob submit(List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config) {
+        evictFinished();
+        NestingJob job = new NestingJob(UUID.randomUUID().toString(), parts, ids, sheet, config);
+        ResultCache.Fingerprint fingerprint = ResultCache.fingerprint(parts, ids, sheet, config);
+        NestingLayout cached = results.get(fingerprint);
+        jobs.put(job.id(), job);
+        if (cached != null) {
+            job.restore(cached, metrics);
+            return job;
+        }
+        LayoutSeed seed = results.seed(fingerprint);
+        return start(job, () -> {
+            job.run(nestingService, metrics, seed);
+            NestingLayout layout = job.completedLayout();
+            if (layout != null) {
+                results.put(fingerprint, layout);
+            }
+        });
+    }
+
+    /**
+     * Queues an incremental update of the layout of job {@code id}: one copy
+     * of the part per entry of {@code removedIds} is taken out, preferring
+     * unplaced copies and then the last ones uploaded, and {@code added} are
+     * appended to the parts. Every other placement is kept where it is and
+     * only the new and unplaced parts are nested around them with the
+     * configuration of the original job, see {@link NestingService#renest}.
+     * A running job is updated from its best layout so far.
+     *
+     * @throws ResponseStatusException with 404 if the job is unknown, 409 if
+     *         it has no layout yet, 400 if a removed id has no copy left and
+     *         503 if the queue is full
+     */
+    NestingJob update(String id, List<Geometry> added, List<String> addedIds, List<String> removedIds) {
+        NestingJob base = get(id);
+        NestingLayout layout = base.latestLayout();
+        if (layout == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Job " + id + " is " + base.state().name().toLowerCase());
+        }
+        List<String> baseIds = base.ids();
+        boolean[] removed = new boolean[baseIds.size()];
+        for (String removedId : removedIds) {
+            int copy = -1;
+            for (int index : layout.unplaced()) {
+                if (!removed[index] && baseIds.get(index).equals(removedId)) {
+                    copy = index;
+                    break;
+                }
+            }
+            for (int i = baseIds.size() - 1; i >= 0 && copy < 0; i--) {
+                if (!removed[i] && baseIds.get(i).equals(removedId)) {
+                    copy = i;
+                }
+            }
+            if (copy < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No part " + removedId + " left to remove");
+            }
+            removed[copy] = true;
+        }
+
+        List<Geometry> parts = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        int[] index = new int[baseIds.size()];
+        for (int i = 0; i < baseIds.size(); i++) {
+            index[i] = removed[i] ? -1 : parts.size();
+            if (!removed[i]) {
+                parts.add(base.parts().get(i));
+                ids.add(baseIds.get(i));
+            }
+        }
+        parts.addAll(added);
+        ids.addAll(addedIds);
+
+        evictFinished();
+        NestingJob job = new NestingJob(UUID.randomUUID().toString(), parts, ids, base.sheet(), base.config(),
+                layout.renumber(index));
+        jobs.put(job.id(), job);
+        return start(job, () -> job.run(nestingService, metrics, null));
+    }
+
+    private NestingJob start(NestingJob job, Runnable work) {
+        try {
+            job.setFuture(workers.submit(work));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Nesting queue is full");
+        }
+        return job;
+    }
+
+    /**
+     * Returns the job with the given id.
+     *
+     * @throws ResponseStatusException with 404 if the job is unknown
+     */
+    NestingJob get(String id) {
+        NestingJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown job " + id);
+        }
+        return job;
+    }
+
+    /**
+     * Opens a server-sent event stream of layout improvements for the job.
+     */
+    SseEmitter stream(String id) {
+        NestingJob job = get(id);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        job.subscribe(emitter, streamSenders);
+        return emitter;
+    }
+
+    /**
+     * Export of the job's final layout, or with {@code partial} of its best
+     * layout so far.
+     *
+     * @throws ResponseStatusException with 404 if the job is unknown and 409
+     *         if it has no layout to export
+     */
+    LayoutExport export(String id, boolean partial) {
+        NestingJob job = get(id);
+        LayoutExport export = job.export(nestingService, partial);
+        if (export == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Job " + id + " is " + job.state().name().toLowerCase());
+        }
+        return export;
+    }
+
+    /**
+     * Cancels a queued job or stops a running one early.
+     */
+    NestingJob cancel(String id) {
+        NestingJob job = get(id);
+        job.cancel();
+        workers.purge();
+        return job;
+    }
+
+    private void evictFinished() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        streamSenders.shutdownNow();
+    }
+
+    /**
+     * Converts a search layout to the REST payload, mapping parts back to the
+     * ids of the files they came from and computing per-sheet utilisation.
+     */
+    static NestingResult toResult(NestingLayout layout, List<Geometry> parts, List<String> ids,
+                                  Polygon sheet, NestingConfig config) {
+        List<Placement> placements = new ArrayList<>();
+        List<SheetUsage> sheets = new ArrayList<>();
+        for (int s = 0; s < layout.sheets().size(); s++) {
+            double partArea = 0;
+            for (PlacedPart part : layout.sheets().get(s)) {
+                placements.add(placementOf(part, ids, s));
+                partArea += parts.get(part.index()).getArea();
+            }
+            sheets.add(new SheetUsage(s, layout.sheets().get(s).size(), partArea / sheet.getArea()));
+        }
+        List<String> unplaced = new ArrayList<>();
+        for (int index : layout.unplaced()) {
+            unplaced.add(ids.get(index));
+        }
+        return new NestingResult(placements, new SheetSpec(config.sheetWidth(), config.sheetHeight()), sheets, unplaced);
+    }
+
+    /**
+     * REST placement of a placed part: the lower-left corner of its outline,
+     * its accumulated rotation and its sheet.
+     */
+    static Placement placementOf(PlacedPart part, List<String> ids, int sheetIndex) {
+        Envelope env = part.geometry().getEnvelopeInternal();
+        return new Placement(ids.get(part.index()), env.getMinX(), env.getMinY(), part.rotation(), sheetIndex);
+    }
+}
@@ -0,0 +1,72 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Result of a nesting run: the parts placed on each sheet, in sheet order, and
+ * the indices of input parts that do not fit on an empty sheet.
+ */
+record NestingLayout(List<List<PlacedPart>> sheets, List<Integer> unplaced) {
+
+    /**
+     * All placed outlines across every sheet.
+     */
+    List<Geometry> geometries() {
+        List<Geometry> result = new ArrayList<>();
+        for (List<PlacedPart> sheet : sheets) {
+            for (PlacedPart part : sheet) {
+                result.add(part.geometry());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * This layout with part {@code i} renumbered to {@code index[i]}. Parts
+     * mapped to {@code -1} are removed, as are sheets left empty; placed
+     * parts keep their positions.
+     */
+    NestingLayout renumber(int[] index) {
+        List<List<PlacedPart>> renumbered = new ArrayList<>(sheets.size());
+        for (List<PlacedPart> sheet : sheets) {
+            List<PlacedPart> kept = new ArrayList<>(sheet.size());
+            for (PlacedPart part : sheet) {
+                if (index[part.index()] >= 0) {
+                    kept.add(new PlacedPart(index[part.index()], part.rotation(), part.geometry()));
+                }
+            }
+            if (!kept.isEmpty()) {
+                renumbered.add(kept);
+            }
+        }
+        List<Integer> stillUnplaced = new ArrayList<>(unplaced.size());
+        for (int part : unplaced) {
+            if (index[part] >= 0) {
+                stillUnplaced.add(index[part]);
+            }
+        }
+        return new NestingLayout(renumbered, stillUnplaced);
+    }
+}
+
+/**
+ * A part positioned by the search. {@code index} refers to the input part list
+ * and {@code rotation} is the accumulated rotation in degrees applied to the
+ * part before {@code geometry} was translated into place.
+ */
+record PlacedPart(int index, double rotation, Geometry geometry) {
+
+    PlacedPart withGeometry(Geometry moved) {
+        return new PlacedPart(index, rotation, moved);
+    }
+}
+
+/**
+ * Starting point of a search: a placement order over the input parts and a
+ * rotation in degrees per part; {@code NaN} leaves the part at its first
+ * allowed angle, as do angles the part may not take.
+ */
+record LayoutSeed(int[] order, double[] rotations) {}
@@ -0,0 +1,38 @@
+package com.nestingapp;
+
+/**
+ * Callbacks from {@link NestingService} while a search runs. Rounds are
+ * reported in the order they are consumed by the search, on the thread that
+ * called the service.
+ */
+interface NestingListener {
+
+    /** Listener that ignores all events. */
+    NestingListener NONE = new NestingListener() {};
+
+    /**
+     * Called after every completed round.
+     *
+     * @param rounds rounds completed so far
+     * @param noImprovement consecutive rounds without a better layout
+     * @param elapsedNanos time spent in the search so far
+     */
+    default void onRound(int rounds, int noImprovement, long elapsedNanos) {
+    }
+
+    /**
+     * Called whenever a round produces a better layout than all previous ones,
+     * right after {@link #onRound} for that round.
+     */
+    default void onImprovement(NestingLayout layout, double score) {
+    }
+
+    /**
+     * Polled before every round, and before every part by single pass
+     * strategies. Returning {@code true} ends the search early
+     * with the best layout found so far.
+     */
+    default boolean stopRequested() {
+        return false;
+    }
+}
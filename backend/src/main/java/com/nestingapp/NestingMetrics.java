@@ -0,0 +1,133 @@
+package com.nestingapp;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Micrometer meters of the nesting pipeline, exposed through Spring Boot
+ * Actuator at {@code /actuator/prometheus}. Hot loops count into locals and
+ * report once per placement, so recording stays off the candidate path.
+ * {@link #NONE} records into a registry without backends and serves services
+ * created outside the Spring context, such as in tests and benchmarks.
+ */
+@Component
+class NestingMetrics {
+
+    static final NestingMetrics NONE = new NestingMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+    private final Timer nfp;
+    private final DistributionSummary candidates;
+    private final Counter overlapTests;
+    private final Counter hillClimbRounds;
+
+    NestingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.nfp = Timer.builder("nesting.nfp")
+            .description("No-fit polygon and Minkowski sum computations, excluding cache hits")
+            .register(registry);
+        this.candidates = DistributionSummary.builder("nesting.place.candidates")
+            .description("Candidate positions evaluated per part placement")
+            .register(registry);
+        this.overlapTests = Counter.builder("nesting.overlap.tests")
+            .description("Overlap predicate calls against placed parts")
+            .register(registry);
+        this.hillClimbRounds = Counter.builder("nesting.hillclimb.rounds")
+            .description("Passes of the rotation hill climbing over a sheet")
+            .register(registry);
+    }
+
+    /** Timer of parsing one uploaded file of the given format. */
+    Timer parse(String format) {
+        return Timer.builder("nesting.import.parse")
+            .description("Parse time of one uploaded part file")
+            .tag("format", format)
+            .register(registry);
+    }
+
+    /** Decorates {@code engine} so every computation is timed. */
+    NoFitPolygonEngine timed(NoFitPolygonEngine engine) {
+        return new NoFitPolygonEngine() {
+            @Override
+            public Geometry minkowskiSum(Geometry a, Geometry b) {
+                return nfp.record(() -> engine.minkowskiSum(a, b));
+            }
+
+            @Override
+            public Geometry noFitPolygon(Geometry base, Geometry moving) {
+                return nfp.record(() -> engine.noFitPolygon(base, moving));
+            }
+        };
+    }
+
+    /** Registers hit, miss and size meters of {@code cache} and returns it. */
+    NfpCache monitor(NfpCache cache) {
+        FunctionCounter.builder("nesting.nfp.cache.requests", cache, NfpCache::hits)
+            .description("NFP cache lookups").tag("result", "hit").register(registry);
+        FunctionCounter.builder("nesting.nfp.cache.requests", cache, NfpCache::misses)
+            .description("NFP cache lookups").tag("result", "miss").register(registry);
+        Gauge.builder("nesting.nfp.cache.size", cache, NfpCache::size)
+            .description("NFPs held by the cache").register(registry);
+        return cache;
+    }
+
+    /** Registers hit, seed, miss and size meters of {@code cache} and returns it. */
+    ResultCache monitor(ResultCache cache) {
+        FunctionCounter.builder("nesting.result.cache.requests", cache, ResultCache::hits)
+            .description("Layout cache lookups of nesting requests").tag("result", "hit").register(registry);
+        FunctionCounter.builder("nesting.result.cache.requests", cache, ResultCache::seeded)
+            .description("Layout cache lookups of nesting requests").tag("result", "seeded").register(registry);
+        FunctionCounter.builder("nesting.result.cache.requests", cache, ResultCache::misses)
+            .description("Layout cache lookups of nesting requests").tag("result", "miss").register(registry);
+        Gauge.builder("nesting.result.cache.size", cache, ResultCache::size)
+            .description("Layouts held by the result cache").register(registry);
+        return cache;
+    }
+
+    /** Registers the record count of the persistent {@code store}. */
+    void monitor(GeometryStore store) {
+        Gauge.builder("nesting.store.records", store, GeometryStore::size)
+            .description("Records in the persistent NFP and variant store").register(registry);
+    }
+
+    /** Records one part placement and the work it took. */
+    void placed(int candidateCount, int overlapTestCount) {
+        candidates.record(candidateCount);
+        overlapTests.increment(overlapTestCount);
+    }
+
+    void hillClimbRound() {
+        hillClimbRounds.increment();
+    }
+
+    /**
+     * Records a finished job: its run time and, for jobs with a layout, the
+     * placed part area relative to the area of the sheets used.
+     */
+    void jobFinished(String strategy, String outcome, long nanos, Double utilisation) {
+        String name = strategy != null ? strategy.toLowerCase(Locale.ROOT) : NestingStrategy.SHUFFLE;
+        Timer.builder("nesting.job")
+            .description("Run time of nesting jobs")
+            .tags("strategy", name, "outcome", outcome)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+        if (utilisation != null) {
+            DistributionSummary.builder("nesting.job.utilisation")
+                .description("Part area over used sheet area of finished jobs")
+                .tag("strategy", name)
+                .register(registry)
+                .record(utilisation);
+        }
+    }
+}
@@ -1,18 +1,153 @@
 package com.nestingapp;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * DTOs used by the REST API for exchanging nesting payloads.
  */
-public record NestingResult(List<Placement> nestedParts, SheetSpec sheet) {}
+public record NestingResult(List<Placement> nestedParts, SheetSpec sheet, List<SheetUsage> sheets,
+                            List<String> unplaced) {
 
-record NestingConfig(double spacing, double rotationStep, double sheetWidth, double sheetHeight, int maxNoImprovement) {}
+    public NestingResult(List<Placement> nestedParts, SheetSpec sheet) {
+        this(nestedParts, sheet, List.of(), List.of());
+    }
+}
 
-record Placement(String id, double x, double y, double rotation) {}
+/**
+ * Nesting parameters. {@code seed} makes the search reproducible when set and
+ * {@code parallelism} is the number of shuffled orderings evaluated
+ * concurrently (values below 2 run sequentially on the calling thread).
+ * {@code quantities} maps part ids (the uploaded file names) to the number of
+ * copies to nest; parts without an entry are nested once. {@code rotations}
+ * optionally restricts the angles in degrees a part may take, for example to
+ * keep the grain direction; other parts may take every multiple of
+ * {@code rotationStep}. {@code strategy} names the {@link NestingStrategy}
+ * ({@code shuffle} by default, {@code genetic}, or {@code bottom-left} for a
+ * fast single pass over large part counts) and a positive
+ * {@code timeLimitMillis} ends the search after that time even if it is still
+ * improving. A positive {@code tolerance} simplifies the buffered part
+ * outlines within that distance, never shrinking them, and snaps them to a
+ * fixed precision grid before nesting.
+ */
+record NestingConfig(double spacing, double rotationStep, double sheetWidth, double sheetHeight, int maxNoImprovement,
+                     Long seed, int parallelism, Map<String, Integer> quantities, Map<String, List<Double>> rotations,
+                     String strategy, long timeLimitMillis, double tolerance) {
+
+    /**
+     * Configuration with the given sheet and search parameters and defaults
+     * for everything else; the {@code with} methods return copies with one
+     * more parameter set.
+     */
+    NestingConfig(double spacing, double rotationStep, double sheetWidth, double sheetHeight, int maxNoImprovement) {
+        this(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, null, 0, null, null, null, 0, 0);
+    }
+
+    NestingConfig withSeed(Long seed) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withParallelism(int parallelism) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withQuantities(Map<String, Integer> quantities) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withRotations(Map<String, List<Double>> rotations) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withStrategy(String strategy) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withTimeLimitMillis(long timeLimitMillis) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    NestingConfig withTolerance(double tolerance) {
+        return new NestingConfig(spacing, rotationStep, sheetWidth, sheetHeight, maxNoImprovement, seed, parallelism,
+            quantities, rotations, strategy, timeLimitMillis, tolerance);
+    }
+
+    /**
+     * Number of copies requested for the part with the given id.
+     */
+    int quantity(String id) {
+        if (quantities == null) {
+            return 1;
+        }
+        Integer quantity = quantities.get(id);
+        return quantity != null ? quantity : 1;
+    }
+
+    /**
+     * Sorted, distinct angles in [0, 360) allowed for the part with the given
+     * id, which may be {@code null}. Without an explicit list these are the
+     * multiples of {@code rotationStep}, or only 0 if the step is not
+     * positive.
+     */
+    double[] allowedRotations(String id) {
+        List<Double> allowed = rotations != null && id != null ? rotations.get(id) : null;
+        if (allowed != null && !allowed.isEmpty()) {
+            return allowed.stream()
+                .mapToDouble(angle -> ((angle % 360) + 360) % 360)
+                .sorted().distinct().toArray();
+        }
+        if (!(rotationStep > 0) || rotationStep >= 360) {
+            return new double[] { 0 };
+        }
+        int count = (int) Math.ceil(360 / rotationStep - GeometryUtils.EPSILON);
+        double[] angles = new double[count];
+        for (int i = 0; i < count; i++) {
+            angles[i] = i * rotationStep;
+        }
+        return angles;
+    }
+}
+
+record Placement(String id, double x, double y, double rotation, int sheetIndex) {
+
+    Placement(String id, double x, double y, double rotation) {
+        this(id, x, y, rotation, 0);
+    }
+}
+
+/**
+ * Summary of one sheet of a multi-sheet layout. {@code utilisation} is the
+ * part area divided by the sheet area.
+ */
+record SheetUsage(int index, int partCount, double utilisation) {}
 
 record SheetSpec(double width, double height) {}
 
-record ExportRequest(String format, NestingResult layout) {}
+/**
+ * Progress of an asynchronous nesting job. {@code iterations} counts completed
+ * search rounds and {@code bestUtilisation} is the part area of the best
+ * layout so far divided by the material it occupies.
+ */
+record StatusResponse(String jobId, String status, int progress, String estimatedTime, int iterations,
+                      double bestUtilisation, String error) {}
+
+record JobResponse(String jobId, String status) {}
+
+/**
+ * Server-sent update published whenever a job finds a better layout. Only
+ * parts whose placement changed since the previous update are included unless
+ * {@code full} is set.
+ */
+record LayoutUpdate(int iteration, double utilisation, boolean full, List<PartUpdate> parts) {}
 
-record StatusResponse(String status, int progress, String estimatedTime) {}
+/**
+ * Placement of one input part; {@code part} is the index of the part in the
+ * upload so copies from the same file can be told apart.
+ */
+record PartUpdate(int part, String id, double x, double y, double rotation, int sheetIndex) {}
@@ -0,0 +1,187 @@
+package com.nestingapp;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * State of one nesting request as seen by a {@link NestingStrategy}: the parts
+ * with their variant tables, the placement primitives of
+ * {@link NestingService}, the best layout so far and the stopping rules. The
+ * search is done after {@code maxNoImprovement} consecutive rounds without a
+ * better layout, once the time limit has passed, or when the listener
+ * requests a stop or the calling thread is interrupted. The time limit is
+ * also enforced within rounds, so the search ends shortly after it with the
+ * best complete layout found.
+ */
+final class NestingSearch {
+
+    private final NestingService service;
+    private final List<PartShape> shapes;
+    private final Polygon sheet;
+    private final NestingConfig config;
+    private final NestingListener listener;
+    private final Executor executor;
+    private final long start = System.nanoTime();
+    private final Deadline deadline;
+
+    private ScoredLayout best;
+    private int rounds;
+    private int noImprovement;
+
+    /**
+     * Search ending at {@code deadline}, which the caller starts when the
+     * request arrives so that preparing the parts counts towards the limit.
+     */
+    NestingSearch(NestingService service, List<PartShape> shapes, Polygon sheet, NestingConfig config,
+                  NestingListener listener, Executor executor, Deadline deadline) {
+        this.service = service;
+        this.shapes = shapes;
+        this.sheet = sheet;
+        this.config = config;
+        this.listener = listener;
+        this.executor = executor;
+        this.deadline = deadline;
+    }
+
+    int partCount() {
+        return shapes.size();
+    }
+
+    PartShape shape(int part) {
+        return shapes.get(part);
+    }
+
+    NestingConfig config() {
+        return config;
+    }
+
+    Polygon sheet() {
+        return sheet;
+    }
+
+    /**
+     * Executor for concurrent evaluations; strategies only use it with
+     * {@code parallelism > 1}.
+     */
+    Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Random source for a round. Seeded runs derive an independent stream per
+     * round index so results do not depend on which thread runs the round.
+     */
+    Random random(int round) {
+        Long seed = config.seed();
+        if (seed == null) {
+            return new Random();
+        }
+        return new Random(seed * 0x9E3779B97F4A7C15L + round);
+    }
+
+    /**
+     * Places the parts first-fit in {@code order}, part {@code i} as variant
+     * {@code variants[i]} of its shape, optionally followed by hill climbing.
+     * After the time limit the layout is completed with less search effort.
+     * Safe to call concurrently.
+     */
+    ScoredLayout evaluate(int[] order, int[] variants, boolean refine) {
+        return service.evaluate(shapes, sheet, order, variants, refine, deadline);
+    }
+
+    /**
+     * Scores a layout built by the strategy itself.
+     */
+    ScoredLayout score(List<List<PlacedPart>> sheets, List<Integer> unplaced) {
+        return new ScoredLayout(new NestingLayout(sheets, unplaced), NestingService.score(sheets, sheet.getArea()));
+    }
+
+    /**
+     * Records the best layout of a completed round and notifies the listener.
+     * Returns {@code true} if it is better than all previous ones.
+     */
+    boolean completeRound(ScoredLayout layout) {
+        rounds++;
+        boolean improved = best == null || layout.score() < best.score();
+        if (improved) {
+            best = layout;
+            noImprovement = 0;
+        } else {
+            noImprovement++;
+        }
+        listener.onRound(rounds, noImprovement, System.nanoTime() - start);
+        if (improved) {
+            listener.onImprovement(layout.layout(), layout.score());
+        }
+        return improved;
+    }
+
+    /**
+     * Evaluates {@code seed} with hill climbing as the first round, so the
+     * strategy starts from its layout and only reports better ones. Angles a
+     * part may not take fall back to its first variant.
+     *
+     * @throws IllegalArgumentException if the seed does not cover every part
+     */
+    void seed(LayoutSeed seed) {
+        if (seed.order().length != shapes.size() || seed.rotations().length != shapes.size()) {
+            throw new IllegalArgumentException("Seed covers " + seed.order().length + " of "
+                + shapes.size() + " parts");
+        }
+        int[] variants = new int[shapes.size()];
+        for (int i = 0; i < variants.length; i++) {
+            double rotation = seed.rotations()[i];
+            variants[i] = Double.isNaN(rotation) ? 0 : Math.max(0, shapes.get(i).variantOf(rotation));
+        }
+        completeRound(evaluate(seed.order(), variants, true));
+    }
+
+    /**
+     * Whether the search should stop. Once it is, the deadline is stopped so
+     * evaluations still running for abandoned rounds give up early.
+     */
+    boolean done() {
+        boolean done = noImprovement >= config.maxNoImprovement()
+            || deadline.expired()
+            || listener.stopRequested() || Thread.currentThread().isInterrupted();
+        if (done) {
+            deadline.stop();
+        }
+        return done;
+    }
+
+    /**
+     * Whether the listener requested a stop or the calling thread was
+     * interrupted, in which case the deadline is stopped, or the deadline was
+     * already stopped. Polled between parts by strategies that build their
+     * layout part by part instead of through {@link #evaluate}.
+     */
+    boolean stopped() {
+        if (listener.stopRequested() || Thread.currentThread().isInterrupted()) {
+            deadline.stop();
+        }
+        return deadline.stopped();
+    }
+
+    /**
+     * Whether the time limit has passed or the search was stopped.
+     */
+    boolean expired() {
+        return deadline.expired();
+    }
+
+    /**
+     * The best layout so far, empty if no round has completed.
+     */
+    NestingLayout result() {
+        return best != null ? best.layout() : new NestingLayout(List.of(), List.of());
+    }
+}
+
+/**
+ * A layout with its {@link NestingService} score; lower is better.
+ */
+record ScoredLayout(NestingLayout layout, double score) {}
@@ -1,24 +1,125 @@
 package com.nestingapp;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.util.AffineTransformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import jakarta.annotation.PreDestroy;
 
 /**
- * Core nesting logic facade. Provides a simple NFP based search that positions
- * parts along no-fit polygon boundaries and applies a small hill climbing
- * refinement of rotation angles.
+ * Core nesting logic facade. Positions parts along no-fit polygon boundaries
+ * and leaves the search over part orders and rotations to a
+ * {@link NestingStrategy}: random restarts with a small hill climbing
+ * refinement of rotation angles, or a genetic algorithm.
  */
 @Service
 public class NestingService {
 
+    /** Number of part variant tables kept between requests. */
+    static final int SHAPE_CACHE_ENTRIES = 1_000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(NestingService.class);
+
+    private final NoFitPolygonEngine nfpEngine;
+    private final Executor searchExecutor;
+    private final NestingMetrics metrics;
+    private final GeometryStore store;
+    private final Map<PartShape.Key, PartShape> shapeCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PartShape.Key, PartShape> eldest) {
+            return size() > SHAPE_CACHE_ENTRIES;
+        }
+    };
+
+    public NestingService() {
+        this(null, ForkJoinPool.commonPool(), NestingMetrics.NONE, null);
+    }
+
+    public NestingService(NoFitPolygonEngine nfpEngine, Executor searchExecutor) {
+        this(nfpEngine, searchExecutor, NestingMetrics.NONE, null);
+    }
+
+    /**
+     * Service whose NFPs and part variant tables are kept in the persistent
+     * store at {@code storePath}; an empty path disables the store. Parallel
+     * rounds run on a pool of {@code searchThreads} threads, or on the common
+     * pool if it is not positive.
+     */
+    @Autowired
+    NestingService(NestingMetrics metrics, @Value("${nesting.store.path:}") String storePath,
+                   @Value("${nesting.store.max-size:1GB}") DataSize storeMaxSize,
+                   @Value("${nesting.search.threads:0}") int searchThreads) {
+        this(null, searchThreads > 0 ? new ForkJoinPool(searchThreads) : ForkJoinPool.commonPool(), metrics,
+            openStore(storePath, storeMaxSize));
+    }
+
+    /**
+     * Service computing NFPs with {@code nfpEngine}, or if it is {@code null}
+     * with an {@link NfpCache} over the shared {@link GeometryUtils} engine
+     * backed by {@code store}, which may be {@code null}.
+     */
+    NestingService(NoFitPolygonEngine nfpEngine, Executor searchExecutor, NestingMetrics metrics,
+                   GeometryStore store) {
+        this.nfpEngine = nfpEngine != null ? nfpEngine
+            : metrics.monitor(new NfpCache(metrics.timed(GeometryUtils.nfpEngine()), NfpCache.DEFAULT_MAX_ENTRIES,
+                NfpCache.DEFAULT_QUANTUM, store));
+        this.searchExecutor = searchExecutor;
+        this.metrics = metrics;
+        this.store = store;
+        if (store != null) {
+            metrics.monitor(store);
+        }
+    }
+
+    /**
+     * Opens the store at {@code path}, or returns {@code null} if the path is
+     * empty or the store cannot be used, in which case nesting runs without
+     * it.
+     */
+    private static GeometryStore openStore(String path, DataSize maxSize) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        try {
+            return GeometryStore.open(Path.of(path), maxSize.toBytes());
+        } catch (IOException ex) {
+            LOG.warn("Nesting without persistent store: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Shuts down a dedicated search pool and closes the store.
+     */
+    @PreDestroy
+    void close() throws IOException {
+        if (searchExecutor != ForkJoinPool.commonPool() && searchExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
     /**
      * Nests the provided parts onto the given sheet. Parts are shuffled and
      * placed sequentially by searching along NFP boundaries for the position
@@ -54,45 +155,269 @@ public class NestingService {
      * Parts are first buffered by the given spacing before placement.
      */
     public List<Geometry> nestParts(List<Geometry> parts, Polygon sheet, double spacing, double rotationStep, int maxNoImprovement) {
+        return nestParts(parts, sheet, new NestingConfig(spacing, rotationStep,
+                sheet.getEnvelopeInternal().getWidth(), sheet.getEnvelopeInternal().getHeight(), maxNoImprovement));
+    }
+
+    /**
+     * Nests the provided parts using all parameters of {@code config} and
+     * returns the placed geometries of all sheets.
+     */
+    public List<Geometry> nestParts(List<Geometry> parts, Polygon sheet, NestingConfig config) {
+        return nestLayout(parts, sheet, config).geometries();
+    }
+
+    /**
+     * Nests the provided parts onto as many copies of {@code sheet} as needed.
+     * Layouts are built first-fit: in the order chosen by the
+     * {@link NestingStrategy} selected in {@code config}, a part goes to the
+     * first open sheet where a position along NFP boundaries inside the
+     * sheet's inner-fit rectangle exists, otherwise a new sheet is opened.
+     * Parts larger than an empty sheet are reported as unplaced. The search
+     * ends after {@code maxNoImprovement} rounds without a better layout or
+     * once the time limit has passed; the limit is also checked while parts
+     * are placed and hill climbed, so it bounds the latency of the whole call
+     * up to finishing the layouts in progress. Parts only take the angles
+     * allowed by {@link NestingConfig#allowedRotations}; identical parts share
+     * one precomputed table of their buffered outline at those angles (see
+     * {@link PartShape}), so the cost of preparing parts and of NFPs grows
+     * with the number of distinct shapes.
+     */
+    public NestingLayout nestLayout(List<Geometry> parts, Polygon sheet, NestingConfig config) {
+        return nestLayout(parts, sheet, config, NestingListener.NONE);
+    }
+
+    /**
+     * Variant of {@link #nestLayout(List, Polygon, NestingConfig)} reporting
+     * progress to {@code listener}. The search also ends early, returning the
+     * best layout so far, when the listener requests a stop or the calling
+     * thread is interrupted.
+     */
+    public NestingLayout nestLayout(List<Geometry> parts, Polygon sheet, NestingConfig config,
+                                    NestingListener listener) {
+        return nestLayout(parts, null, sheet, config, listener);
+    }
+
+    /**
+     * Variant of {@link #nestLayout(List, Polygon, NestingConfig, NestingListener)}
+     * for parts identified by {@code ids}, which select per-part rotation
+     * limits from {@link NestingConfig#rotations()}.
+     */
+    public NestingLayout nestLayout(List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config,
+                                    NestingListener listener) {
+        return nestLayout(parts, ids, sheet, config, listener, null);
+    }
+
+    /**
+     * Variant of {@link #nestLayout(List, List, Polygon, NestingConfig, NestingListener)}
+     * whose first round places the parts as given by {@code seed}, if not
+     * {@code null} and the strategy accepts seeds, so the search starts from
+     * a known good layout.
+     */
+    NestingLayout nestLayout(List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config,
+                             NestingListener listener, LayoutSeed seed) {
+        // the time limit covers building the variant tables too
+        Deadline deadline = Deadline.in(config.timeLimitMillis());
         if (parts.isEmpty()) {
-            return List.of();
+            return new NestingLayout(List.of(), List.of());
         }
 
-        List<Geometry> buffered = new ArrayList<>();
-        for (Geometry part : parts) {
-            buffered.add(GeometryUtils.applySpacing(part, spacing));
+        NestingStrategy strategy = NestingStrategy.named(config.strategy());
+        NestingSearch search = new NestingSearch(this, shapes(parts, ids, config), sheet, config, listener,
+                searchExecutor, deadline);
+        try {
+            if (seed != null && strategy.acceptsSeed()) {
+                search.seed(seed);
+            }
+            strategy.search(search);
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException re ? re : ex;
+        }
+        return search.result();
+    }
+
+    /**
+     * Incremental re-nesting: keeps the parts placed in {@code fixed} where
+     * they are and places every other part of {@code parts} around them,
+     * largest first. A part goes to the first sheet with room, in the
+     * rotation that grows the envelope of the sheet's parts least; space
+     * left by removed parts, including holes, is filled again. New sheets
+     * are only opened for parts that fit nowhere else. Only NFPs between the
+     * new parts and their neighbours are needed, and those of shapes nested
+     * before come from the NFP cache, so an update costs a small fraction of
+     * a full search. Once the time limit has passed the remaining parts
+     * take the first feasible position and rotation found; after a stop
+     * request or an interrupt they are reported unplaced. The result is
+     * reported to {@code listener} as a single round.
+     */
+    NestingLayout renest(List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config,
+                         NestingLayout fixed, NestingListener listener) {
+        long start = System.nanoTime();
+        Deadline deadline = Deadline.in(config.timeLimitMillis());
+        List<PartShape> shapes = shapes(parts, ids, config);
+        List<SheetBin> bins = new ArrayList<>();
+        boolean[] placed = new boolean[parts.size()];
+        for (List<PlacedPart> kept : fixed.sheets()) {
+            SheetBin bin = new SheetBin(sheet);
+            for (PlacedPart part : kept) {
+                bin.placed().add(part);
+                placed[part.index()] = true;
+            }
+            bins.add(bin);
         }
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            if (!placed[i]) {
+                pending.add(i);
+            }
+        }
+        pending.sort((a, b) -> Double.compare(parts.get(b).getArea(), parts.get(a).getArea()));
 
-        List<Geometry> shuffled = new ArrayList<>(buffered);
-        List<Geometry> bestPlaced = new ArrayList<>();
-        double bestScore = Double.MAX_VALUE;
-        int noImprovement = 0;
+        List<Integer> unplaced = new ArrayList<>();
+        for (int index : pending) {
+            if (listener.stopRequested() || Thread.currentThread().isInterrupted()) {
+                deadline.stop();
+            }
+            if (deadline.stopped()) {
+                unplaced.add(index);
+                continue;
+            }
+            PartShape shape = shapes.get(index);
+            PlacedPart positioned = null;
+            for (SheetBin bin : bins) {
+                positioned = placeAnyVariant(index, shape, bin, deadline);
+                if (positioned != null) {
+                    bin.placed().add(positioned);
+                    break;
+                }
+            }
+            if (positioned == null) {
+                SheetBin bin = new SheetBin(sheet);
+                positioned = placeAnyVariant(index, shape, bin, deadline);
+                if (positioned != null) {
+                    bin.placed().add(positioned);
+                    bins.add(bin);
+                } else {
+                    unplaced.add(index);
+                }
+            }
+        }
 
-        while (noImprovement < maxNoImprovement) {
-            Collections.shuffle(shuffled);
-            List<Geometry> placed = new ArrayList<>();
-            // place first part at origin
-            Geometry first = translateToOrigin(shuffled.get(0));
-            placed.add(first);
+        List<List<PlacedPart>> sheets = new ArrayList<>(bins.size());
+        for (SheetBin bin : bins) {
+            sheets.add(new ArrayList<>(bin.placed().parts()));
+        }
+        NestingLayout layout = new NestingLayout(sheets, unplaced);
+        listener.onRound(1, 0, System.nanoTime() - start);
+        listener.onImprovement(layout, score(sheets, sheet.getArea()));
+        return layout;
+    }
 
-            for (int i = 1; i < shuffled.size(); i++) {
-                Geometry part = shuffled.get(i);
-                Geometry positioned = placePart(part, placed);
-                placed.add(positioned);
+    /**
+     * Places the part with the given index on {@code bin} in the variant
+     * whose position grows the envelope of the placed parts least, or
+     * returns {@code null} if no variant fits. Once {@code deadline} has
+     * expired the first variant that fits is taken.
+     */
+    private PlacedPart placeAnyVariant(int index, PartShape shape, SheetBin bin, Deadline deadline) {
+        Envelope used = new Envelope();
+        for (Geometry g : bin.placed().geometries()) {
+            used.expandToInclude(g.getEnvelopeInternal());
+        }
+        PlacedPart best = null;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < shape.variantCount() && (best == null || !deadline.expired()); v++) {
+            PlacedPart candidate = placePart(new PlacedPart(index, shape.rotation(v), shape.outline(v)), bin,
+                deadline);
+            if (candidate != null) {
+                Envelope grown = new Envelope(used);
+                grown.expandToInclude(candidate.geometry().getEnvelopeInternal());
+                if (grown.getArea() < bestArea - GeometryUtils.EPSILON) {
+                    best = candidate;
+                    bestArea = grown.getArea();
+                }
             }
+        }
+        return best;
+    }
+
+    /**
+     * Variant tables of {@code parts} for {@code config}, reusing tables of
+     * earlier requests with the same shapes, spacing, tolerance and angles.
+     * Package-private for layout exports and the JMH benchmarks.
+     */
+    List<PartShape> shapes(List<Geometry> parts, List<String> ids, NestingConfig config) {
+        double[] defaults = config.allowedRotations(null);
+        List<double[]> rotations = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            rotations.add(ids != null ? config.allowedRotations(ids.get(i)) : defaults);
+        }
+        return PartShape.of(parts, rotations, config.spacing(), config.tolerance(), shapeCache, store);
+    }
 
-            List<Geometry> improved = hillClimb(placed, rotationStep);
-            double score = layoutArea(improved);
-            if (score < bestScore) {
-                bestScore = score;
-                bestPlaced = improved;
-                noImprovement = 0;
-            } else {
-                noImprovement++;
+    /**
+     * Places the parts first-fit in {@code order}, each as the variant of its
+     * shape given by {@code variants}, and scores the layout. With
+     * {@code refine} the rotations are then improved per sheet by hill
+     * climbing. Once {@code deadline} has expired the remaining parts are
+     * placed at the first feasible position found and hill climbing stops, so
+     * a complete layout is still returned quickly. Once it is stopped the
+     * remaining parts are reported unplaced; such layouts are discarded.
+     */
+    ScoredLayout evaluate(List<PartShape> shapes, Polygon sheet, int[] order, int[] variants, boolean refine,
+                          Deadline deadline) {
+        List<SheetBin> bins = new ArrayList<>();
+        List<Integer> unplaced = new ArrayList<>();
+
+        for (int index : order) {
+            if (deadline.stopped()) {
+                unplaced.add(index);
+                continue;
+            }
+            PartShape shape = shapes.get(index);
+            PlacedPart part = new PlacedPart(index, shape.rotation(variants[index]), shape.outline(variants[index]));
+            PlacedPart positioned = null;
+            for (SheetBin bin : bins) {
+                positioned = placePart(part, bin, deadline);
+                if (positioned != null) {
+                    bin.placed().add(positioned);
+                    break;
+                }
+            }
+            if (positioned == null) {
+                SheetBin bin = new SheetBin(sheet);
+                positioned = placePart(part, bin, deadline);
+                if (positioned != null) {
+                    bin.placed().add(positioned);
+                    bins.add(bin);
+                } else {
+                    unplaced.add(part.index());
+                }
             }
         }
 
-        return bestPlaced;
+        List<List<PlacedPart>> sheets = new ArrayList<>();
+        for (SheetBin bin : bins) {
+            sheets.add(refine ? hillClimb(bin, shapes, deadline) : new ArrayList<>(bin.placed().parts()));
+        }
+        return new ScoredLayout(new NestingLayout(sheets, unplaced), score(sheets, sheet.getArea()));
+    }
+
+    /**
+     * Layout score: every sheet before the last counts as fully used and the
+     * last sheet contributes the bounding box area of its parts, so fewer
+     * sheets always win and ties are broken by compactness.
+     */
+    static double score(List<List<PlacedPart>> sheets, double sheetArea) {
+        if (sheets.isEmpty()) {
+            return 0;
+        }
+        List<PlacedPart> last = sheets.get(sheets.size() - 1);
+        List<Geometry> geoms = new ArrayList<>(last.size());
+        for (PlacedPart p : last) {
+            geoms.add(p.geometry());
+        }
+        return (sheets.size() - 1) * sheetArea + layoutArea(geoms);
     }
 
     /**
@@ -112,96 +437,271 @@ public class NestingService {
     }
 
     /**
-     * Places {@code part} relative to already {@code placed} parts by exploring
-     * all vertices of the pairwise NFPs. The candidate yielding the smallest
-     * bounding box is returned. If no valid position is found the part is
-     * returned translated to the origin.
+     * Places {@code part} on {@code bin} relative to the parts already placed
+     * there. Holes of placed parts are tried first, see {@link #placeInHole};
+     * a part nested in a hole does not grow the layout, so the outer search
+     * is skipped. Otherwise all vertices and edge midpoints of the pairwise
+     * NFPs plus the corners of the sheet's inner-fit rectangle are explored.
+     * Candidates outside the inner-fit rectangle are rejected before any
+     * other work; the rest are scored against the running layout envelope
+     * before the more expensive overlap test runs on the packed outline at
+     * the candidate offset. Only the winning position, or for non-rectangular
+     * sheets a candidate that passed all other tests, is materialised as a
+     * geometry. The candidate yielding the smallest bounding box is returned,
+     * or {@code null} if the part does not fit on the sheet. Package-private
+     * for the JMH benchmarks.
      */
-    private Geometry placePart(Geometry part, List<Geometry> placed) {
-        Geometry best = null;
-        double bestArea = Double.MAX_VALUE;
+    PlacedPart placePart(PlacedPart part, SheetBin bin) {
+        return placePart(part, bin, Deadline.NONE);
+    }
 
-        for (Geometry p : placed) {
-            Geometry nfp = GeometryUtils.noFitPolygon(p, part);
+    /**
+     * Variant of {@link #placePart(PlacedPart, SheetBin)} that stops exploring
+     * NFPs once {@code deadline} has expired and a feasible position is known,
+     * or as soon as it is stopped.
+     */
+    PlacedPart placePart(PlacedPart part, SheetBin bin, Deadline deadline) {
+        Geometry geometry = part.geometry();
+        Envelope partEnv = geometry.getEnvelopeInternal();
+        Envelope innerFit = bin.innerFit(partEnv);
+        if (innerFit.isNull()) {
+            return null;
+        }
+        PlacedPart inHole = placeInHole(part, bin);
+        if (inHole != null) {
+            return inHole;
+        }
+        PlacedIndex placed = bin.placed();
+        LayoutEnvelope layout = LayoutEnvelope.of(placed.geometries());
+        PackedPolygon shape = PackedPolygon.of(geometry);
+        Candidate best = new Candidate();
+
+        // sheet corners, bottom-left first
+        tryCandidate(geometry, shape, partEnv, innerFit.getMinX(), innerFit.getMinY(), innerFit, layout, bin, best);
+        tryCandidate(geometry, shape, partEnv, innerFit.getMaxX(), innerFit.getMinY(), innerFit, layout, bin, best);
+        tryCandidate(geometry, shape, partEnv, innerFit.getMinX(), innerFit.getMaxY(), innerFit, layout, bin, best);
+        tryCandidate(geometry, shape, partEnv, innerFit.getMaxX(), innerFit.getMaxY(), innerFit, layout, bin, best);
+
+        for (Geometry p : placed.geometries()) {
+            if ((best.found && deadline.expired()) || deadline.stopped()) {
+                break;
+            }
+            Geometry nfp = nfpEngine.noFitPolygon(p, geometry);
             Coordinate[] coords = nfp.getCoordinates();
             for (int i = 0; i < coords.length - 1; i++) {
                 Coordinate vertex = coords[i];
                 Coordinate next = coords[i + 1];
-                Coordinate midpoint = new Coordinate(
-                    (vertex.x + next.x) / 2.0,
-                    (vertex.y + next.y) / 2.0
-                );
-                for (Coordinate c : new Coordinate[] { vertex, midpoint }) {
-                    AffineTransformation move = AffineTransformation.translationInstance(c.x, c.y);
-                    Geometry candidate = move.transform(part);
-                    if (intersectsAny(candidate, placed)) {
-                        continue;
-                    }
-                    List<Geometry> temp = new ArrayList<>(placed);
-                    temp.add(candidate);
-                    double area = layoutArea(temp);
-                    if (area < bestArea) {
-                        bestArea = area;
-                        best = candidate;
-                    }
+                tryCandidate(geometry, shape, partEnv, vertex.x, vertex.y, innerFit, layout, bin, best);
+                tryCandidate(geometry, shape, partEnv, (vertex.x + next.x) / 2.0, (vertex.y + next.y) / 2.0,
+                        innerFit, layout, bin, best);
+            }
+        }
+
+        metrics.placed(best.tried, best.overlapTests);
+        if (!best.found) {
+            return null;
+        }
+        Geometry placedGeometry = best.geometry != null ? best.geometry
+            : AffineTransformation.translationInstance(best.x, best.y).transform(geometry);
+        return part.withGeometry(placedGeometry);
+    }
+
+    /**
+     * Places {@code part} inside a hole of a part on {@code bin}, trying the
+     * holes that are large enough from the smallest up. Candidates put the
+     * part's envelope into a corner of the hole's envelope, or its leftmost,
+     * rightmost, lowest or highest vertex onto a hole vertex. The lowest,
+     * then leftmost, candidate free of overlaps in the first hole that has
+     * one is returned, or {@code null} if no hole can take the part. Holes lie
+     * inside placed parts, so no sheet containment test is needed.
+     */
+    static PlacedPart placeInHole(PlacedPart part, SheetBin bin) {
+        Geometry geometry = part.geometry();
+        Envelope partEnv = geometry.getEnvelopeInternal();
+        List<PlacedIndex.Hole> holes = bin.placed().holesFitting(partEnv, geometry.getArea());
+        if (holes.isEmpty()) {
+            return null;
+        }
+        PackedPolygon shape = PackedPolygon.of(geometry);
+        Coordinate[] extremes = extremeVertices(geometry);
+        for (PlacedIndex.Hole hole : holes) {
+            Envelope fit = GeometryUtils.innerFitRectangle(hole.envelope(), partEnv);
+            if (fit.isNull()) {
+                continue;
+            }
+            List<Coordinate> candidates = new ArrayList<>();
+            candidates.add(new Coordinate(fit.getMinX(), fit.getMinY()));
+            candidates.add(new Coordinate(fit.getMaxX(), fit.getMinY()));
+            candidates.add(new Coordinate(fit.getMinX(), fit.getMaxY()));
+            candidates.add(new Coordinate(fit.getMaxX(), fit.getMaxY()));
+            Coordinate[] ring = hole.ring().getCoordinates();
+            for (int i = 0; i < ring.length - 1; i++) {
+                for (Coordinate extreme : extremes) {
+                    candidates.add(new Coordinate(ring[i].x - extreme.x, ring[i].y - extreme.y));
+                }
+            }
+            Coordinate best = null;
+            for (Coordinate c : candidates) {
+                if (c.x < fit.getMinX() - GeometryUtils.EPSILON || c.x > fit.getMaxX() + GeometryUtils.EPSILON
+                        || c.y < fit.getMinY() - GeometryUtils.EPSILON || c.y > fit.getMaxY() + GeometryUtils.EPSILON) {
+                    continue;
+                }
+                if (best != null && (c.y > best.y + GeometryUtils.EPSILON
+                        || (c.y >= best.y - GeometryUtils.EPSILON && c.x >= best.x))) {
+                    continue;
                 }
+                if (!bin.placed().overlaps(shape, c.x, c.y)) {
+                    best = c;
+                }
+            }
+            if (best != null) {
+                return part.withGeometry(AffineTransformation.translationInstance(best.x, best.y).transform(geometry));
             }
         }
+        return null;
+    }
 
-        return best != null ? best : translateToOrigin(part);
+    /** Leftmost, rightmost, lowest and highest vertex of {@code geometry}. */
+    private static Coordinate[] extremeVertices(Geometry geometry) {
+        Coordinate[] coords = geometry.getCoordinates();
+        Coordinate[] extremes = { coords[0], coords[0], coords[0], coords[0] };
+        for (Coordinate c : coords) {
+            if (c.x < extremes[0].x) {
+                extremes[0] = c;
+            }
+            if (c.x > extremes[1].x) {
+                extremes[1] = c;
+            }
+            if (c.y < extremes[2].y) {
+                extremes[2] = c;
+            }
+            if (c.y > extremes[3].y) {
+                extremes[3] = c;
+            }
+        }
+        return extremes;
     }
 
-    private boolean intersectsAny(Geometry g, List<Geometry> geoms) {
-        for (Geometry other : geoms) {
-            if (g.intersects(other) && !g.touches(other)) {
-                return true;
+    /**
+     * Evaluates translating the part by ({@code x}, {@code y}) and records it
+     * in {@code best} if it is inside the sheet, free of overlaps and yields a
+     * smaller layout bounding box. {@code shape} is the packed copy of
+     * {@code geometry}.
+     */
+    private static void tryCandidate(Geometry geometry, PackedPolygon shape, Envelope partEnv, double x, double y,
+                                     Envelope innerFit, LayoutEnvelope layout, SheetBin bin, Candidate best) {
+        best.tried++;
+        if (x < innerFit.getMinX() - GeometryUtils.EPSILON || x > innerFit.getMaxX() + GeometryUtils.EPSILON
+                || y < innerFit.getMinY() - GeometryUtils.EPSILON || y > innerFit.getMaxY() + GeometryUtils.EPSILON) {
+            return;
+        }
+        x = Math.min(Math.max(x, innerFit.getMinX()), innerFit.getMaxX());
+        y = Math.min(Math.max(y, innerFit.getMinY()), innerFit.getMaxY());
+        double area = layout.areaWith(partEnv, x, y);
+        if (area >= best.area) {
+            return;
+        }
+        best.overlapTests++;
+        if (bin.placed().overlaps(shape, x, y)) {
+            return;
+        }
+        Geometry candidate = null;
+        if (!bin.isRectangular()) {
+            candidate = AffineTransformation.translationInstance(x, y).transform(geometry);
+            if (!bin.contains(candidate)) {
+                return;
             }
         }
-        return false;
+        best.found = true;
+        best.area = area;
+        best.x = x;
+        best.y = y;
+        best.geometry = candidate;
     }
 
-    private Geometry translateToOrigin(Geometry g) {
-        Envelope env = g.getEnvelopeInternal();
-        AffineTransformation move = AffineTransformation.translationInstance(-env.getMinX(), -env.getMinY());
-        return move.transform(g);
+    /**
+     * Simple hill climbing over rotation angles. Each part is switched to the
+     * neighbouring variants of its {@code shapes} entry, the next smaller and
+     * next larger allowed angle, and repositioned on the same sheet;
+     * improvements are kept until no further reduction of the sheet's
+     * bounding box area is found. The spatial index of the initial placement
+     * is updated in place: the part under consideration is removed while it is
+     * repositioned and an improved placement is appended at the end.
+     * Package-private for the JMH benchmarks.
+     */
+    List<PlacedPart> hillClimb(SheetBin bin, List<PartShape> shapes) {
+        return hillClimb(bin, shapes, Deadline.NONE);
     }
 
     /**
-     * Simple hill climbing over rotation angles. Each part is rotated by the
-     * given {@code rotationStep} in both directions and repositioned; improvements
-     * are kept until no further reduction of the layout bounding box area is found.
+     * Variant of {@link #hillClimb(SheetBin, List)} that keeps the placement
+     * reached so far once {@code deadline} has expired.
      */
-    private List<Geometry> hillClimb(List<Geometry> parts, double rotationStep) {
-        List<Geometry> placed = new ArrayList<>(parts);
-        double bestArea = layoutArea(placed);
+    List<PlacedPart> hillClimb(SheetBin bin, List<PartShape> shapes, Deadline deadline) {
+        PlacedIndex placed = bin.placed();
+        double bestArea = layoutArea(placed.geometries());
         boolean improved = true;
         while (improved) {
             improved = false;
+            metrics.hillClimbRound();
             for (int i = 0; i < placed.size(); i++) {
-                Geometry original = placed.get(i);
-                List<Geometry> others = new ArrayList<>(placed);
-                others.remove(i);
-                for (double angle : new double[] { -rotationStep, rotationStep }) {
-                    Geometry rotated = GeometryUtils.rotate(original, angle);
-                    Geometry repositioned = placePart(rotated, others);
-                    List<Geometry> candidate = new ArrayList<>(others);
-                    candidate.add(repositioned);
-                    double area = layoutArea(candidate);
+                if (deadline.expired()) {
+                    return new ArrayList<>(placed.parts());
+                }
+                PlacedPart original = placed.remove(i);
+                PartShape shape = shapes.get(original.index());
+                int variant = shape.variantOf(original.rotation());
+                LayoutEnvelope othersEnv = LayoutEnvelope.of(placed.geometries());
+                PlacedPart replacement = null;
+                for (int next : neighbours(variant, shape.variantCount())) {
+                    PlacedPart rotated = new PlacedPart(original.index(), shape.rotation(next), shape.outline(next));
+                    PlacedPart repositioned = placePart(rotated, bin, deadline);
+                    if (repositioned == null) {
+                        continue;
+                    }
+                    double area = othersEnv.areaWith(repositioned.geometry().getEnvelopeInternal(), 0, 0);
                     if (area < bestArea) {
-                        placed = candidate;
+                        replacement = repositioned;
                         bestArea = area;
                         improved = true;
                         break;
                     }
                 }
+                if (replacement != null) {
+                    placed.add(replacement);
+                } else {
+                    placed.add(i, original);
+                }
             }
         }
-        return placed;
+        return new ArrayList<>(placed.parts());
     }
 
-    private double layoutArea(List<Geometry> geoms) {
-        Geometry layout = GeometryUtils.factory().buildGeometry(geoms);
-        return layout.getEnvelope().getArea();
+    /**
+     * The variants adjacent to {@code variant} on the circle of allowed angles.
+     */
+    private static int[] neighbours(int variant, int count) {
+        if (variant < 0 || count < 2) {
+            return new int[0];
+        }
+        int previous = (variant + count - 1) % count;
+        int next = (variant + 1) % count;
+        return previous == next ? new int[] { previous } : new int[] { previous, next };
     }
-}
 
+    private static double layoutArea(List<Geometry> geoms) {
+        return LayoutEnvelope.of(geoms).area();
+    }
+
+    /** Mutable holder for the best candidate found by {@link #placePart}. */
+    private static final class Candidate {
+        private int tried;
+        private int overlapTests;
+        private boolean found;
+        private double area = Double.MAX_VALUE;
+        private double x;
+        private double y;
+        /** Translated outline if one was built for the containment test. */
+        private Geometry geometry;
+    }
+}
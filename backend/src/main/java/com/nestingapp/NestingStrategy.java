@@ -0,0 +1,48 @@
+package com.nestingapp;
+
+/**
+ * Search over part orders and rotations. A strategy builds layouts with
+ * {@link NestingSearch#evaluate} and reports the best layout of every round to
+ * {@link NestingSearch#completeRound} until {@link NestingSearch#done()}.
+ */
+interface NestingStrategy {
+
+    /** Random part orders placed first-fit and refined by hill climbing. */
+    String SHUFFLE = "shuffle";
+
+    /** Genetic algorithm over part orders and rotations. */
+    String GENETIC = "genetic";
+
+    /** Single greedy pass of bottom-left-fill on part envelopes. */
+    String BOTTOM_LEFT = "bottom-left";
+
+    void search(NestingSearch search);
+
+    /**
+     * Whether searches may start from a {@link LayoutSeed}. Single-pass
+     * strategies ignore seeds, whose NFP based evaluation would cost more
+     * than their own pass.
+     */
+    default boolean acceptsSeed() {
+        return true;
+    }
+
+    /**
+     * Returns the strategy with the given name; {@code null} selects
+     * {@link #SHUFFLE}.
+     *
+     * @throws IllegalArgumentException for unknown names
+     */
+    static NestingStrategy named(String name) {
+        if (name == null || SHUFFLE.equalsIgnoreCase(name)) {
+            return new ShuffleStrategy();
+        }
+        if (GENETIC.equalsIgnoreCase(name)) {
+            return new GeneticStrategy();
+        }
+        if (BOTTOM_LEFT.equalsIgnoreCase(name)) {
+            return new BottomLeftStrategy();
+        }
+        throw new IllegalArgumentException("Unknown nesting strategy " + name);
+    }
+}
@@ -0,0 +1,145 @@
+package com.nestingapp;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Bounded, thread-safe NFP cache decorating another {@link NoFitPolygonEngine}.
+ * Both inputs are translated to the origin and their coordinates quantized to
+ * form a content-addressed key, so the key captures the part outline together
+ * with the rotation and spacing already applied to it. Repeated pairs are then
+ * served as a translation of the cached polygon instead of a new Minkowski sum.
+ * The least recently used entries are evicted once {@code maxEntries} is
+ * exceeded. With a {@link GeometryStore} misses are looked up there before
+ * computing, and computed NFPs are added to it, so they survive evictions and
+ * restarts.
+ */
+public class NfpCache implements NoFitPolygonEngine {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final double DEFAULT_QUANTUM = 1e-9;
+
+    /** Record kind of NFPs in a {@link GeometryStore}. */
+    static final byte STORE_KIND = 1;
+
+    private final NoFitPolygonEngine delegate;
+    private final double quantum;
+    private final GeometryStore store;
+    private final Map<PairKey, Geometry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public NfpCache(NoFitPolygonEngine delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_QUANTUM);
+    }
+
+    public NfpCache(NoFitPolygonEngine delegate, int maxEntries, double quantum) {
+        this(delegate, maxEntries, quantum, null);
+    }
+
+    /**
+     * Cache backed by {@code store}, which may be {@code null}.
+     */
+    NfpCache(NoFitPolygonEngine delegate, int maxEntries, double quantum, GeometryStore store) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.delegate = delegate;
+        this.quantum = quantum;
+        this.store = store;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PairKey, Geometry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Geometry minkowskiSum(Geometry a, Geometry b) {
+        return delegate.minkowskiSum(a, b);
+    }
+
+    @Override
+    public Geometry noFitPolygon(Geometry base, Geometry moving) {
+        Envelope baseEnv = base.getEnvelopeInternal();
+        Envelope movingEnv = moving.getEnvelopeInternal();
+        if (baseEnv.isNull() || movingEnv.isNull()) {
+            return delegate.noFitPolygon(base, moving);
+        }
+        PairKey key = new PairKey(ShapeKey.of(base, quantum), ShapeKey.of(moving, quantum));
+
+        Geometry normalized;
+        synchronized (entries) {
+            normalized = entries.get(key);
+        }
+        if (normalized != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            normalized = compute(key, base, baseEnv, moving, movingEnv);
+            synchronized (entries) {
+                entries.put(key, normalized);
+            }
+        }
+        // NFP(b + tb, m + tm) = NFP(b, m) + (tb - tm)
+        return translate(normalized,
+            baseEnv.getMinX() - movingEnv.getMinX(),
+            baseEnv.getMinY() - movingEnv.getMinY());
+    }
+
+    /**
+     * NFP of both inputs moved to the origin, read from the store when it has
+     * it and added to the store otherwise.
+     */
+    private Geometry compute(PairKey key, Geometry base, Envelope baseEnv, Geometry moving, Envelope movingEnv) {
+        GeometryStore.Digest digest = null;
+        if (store != null) {
+            digest = GeometryStore.Digest.builder(STORE_KIND)
+                .add(quantum).add(key.base()).add(key.moving()).build();
+            List<Geometry> stored = store.get(digest);
+            if (stored != null && stored.size() == 1) {
+                return stored.get(0);
+            }
+        }
+        Geometry nfp = delegate.noFitPolygon(
+            translate(base, -baseEnv.getMinX(), -baseEnv.getMinY()),
+            translate(moving, -movingEnv.getMinX(), -movingEnv.getMinY()));
+        if (store != null) {
+            store.put(digest, List.of(nfp));
+        }
+        return nfp;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private static Geometry translate(Geometry g, double dx, double dy) {
+        return AffineTransformation.translationInstance(dx, dy).transform(g);
+    }
+
+    private record PairKey(ShapeKey base, ShapeKey moving) {}
+}
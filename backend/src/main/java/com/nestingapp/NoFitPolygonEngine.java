@@ -0,0 +1,28 @@
+package com.nestingapp;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Strategy for computing Minkowski sums and no-fit polygons (NFPs). The
+ * placement search only depends on this interface so the geometric kernel can
+ * be swapped without touching {@link NestingService}.
+ */
+public interface NoFitPolygonEngine {
+
+    /**
+     * Computes the Minkowski sum of two polygonal geometries.
+     */
+    Geometry minkowskiSum(Geometry a, Geometry b);
+
+    /**
+     * Creates the no-fit polygon of {@code base} and {@code moving}. The moving
+     * geometry is mirrored around the origin before computing the Minkowski
+     * sum, yielding the region of translation vectors for which the two parts
+     * overlap; its boundary is where they touch.
+     */
+    default Geometry noFitPolygon(Geometry base, Geometry moving) {
+        AffineTransformation mirror = AffineTransformation.scaleInstance(-1, -1);
+        return minkowskiSum(base, mirror.transform(moving));
+    }
+}
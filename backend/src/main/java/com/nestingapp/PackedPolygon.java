@@ -0,0 +1,248 @@
+package com.nestingapp;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Compact copy of a polygonal geometry for the placement inner loop. Every
+ * ring is stored as a packed {@code x0, y0, x1, y1, ...} array with the
+ * closing vertex repeated, next to a cached envelope and one interior point
+ * per polygon. Overlap tests take the translation of this polygon as an
+ * offset, so candidate positions are checked without allocating transformed
+ * geometries; only the chosen position is turned back into a JTS geometry.
+ *
+ * <p>Two polygons overlap when their interiors share area. Boundaries closer
+ * than {@link GeometryUtils#EPSILON} count as touching, so parts placed on
+ * NFP vertices and edges are accepted.
+ */
+final class PackedPolygon {
+
+    private static final double EPSILON = GeometryUtils.EPSILON;
+
+    private final double[][] rings;
+    private final double[] interiorPoints;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private PackedPolygon(double[][] rings, double[] interiorPoints, Envelope env) {
+        this.rings = rings;
+        this.interiorPoints = interiorPoints;
+        this.minX = env.getMinX();
+        this.minY = env.getMinY();
+        this.maxX = env.getMaxX();
+        this.maxY = env.getMaxY();
+    }
+
+    /**
+     * Packs the polygons of {@code geometry}; other components are ignored.
+     */
+    static PackedPolygon of(Geometry geometry) {
+        int polygons = 0;
+        int ringCount = 0;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon p && !p.isEmpty()) {
+                polygons++;
+                ringCount += 1 + p.getNumInteriorRing();
+            }
+        }
+        double[][] rings = new double[ringCount][];
+        double[] interiorPoints = new double[2 * polygons];
+        int r = 0;
+        int k = 0;
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            if (geometry.getGeometryN(i) instanceof Polygon p && !p.isEmpty()) {
+                rings[r++] = pack(p.getExteriorRing());
+                for (int h = 0; h < p.getNumInteriorRing(); h++) {
+                    rings[r++] = pack(p.getInteriorRingN(h));
+                }
+                Coordinate inside = p.getInteriorPoint().getCoordinate();
+                interiorPoints[k++] = inside.x;
+                interiorPoints[k++] = inside.y;
+            }
+        }
+        return new PackedPolygon(rings, interiorPoints, geometry.getEnvelopeInternal());
+    }
+
+    private static double[] pack(LinearRing ring) {
+        Coordinate[] coords = ring.getCoordinates();
+        double[] xy = new double[2 * coords.length];
+        for (int i = 0; i < coords.length; i++) {
+            xy[2 * i] = coords[i].x;
+            xy[2 * i + 1] = coords[i].y;
+        }
+        return xy;
+    }
+
+    double minX() {
+        return minX;
+    }
+
+    double minY() {
+        return minY;
+    }
+
+    double maxX() {
+        return maxX;
+    }
+
+    double maxY() {
+        return maxY;
+    }
+
+    /**
+     * Returns {@code true} when this polygon translated by ({@code dx},
+     * {@code dy}) overlaps the interior of {@code other}. The test looks for a
+     * proper crossing of two edges, then for a vertex, edge midpoint or
+     * interior point of either polygon strictly inside the other; only edges
+     * and points inside the common envelope are visited.
+     */
+    boolean overlaps(double dx, double dy, PackedPolygon other) {
+        double x0 = Math.max(minX + dx, other.minX) - EPSILON;
+        double y0 = Math.max(minY + dy, other.minY) - EPSILON;
+        double x1 = Math.min(maxX + dx, other.maxX) + EPSILON;
+        double y1 = Math.min(maxY + dy, other.maxY) + EPSILON;
+        if (x0 > x1 || y0 > y1) {
+            return false;
+        }
+        return crosses(dx, dy, other, x0, y0, x1, y1)
+            || hasPointInside(dx, dy, other, 0, 0, x0, y0, x1, y1)
+            || other.hasPointInside(0, 0, this, dx, dy, x0, y0, x1, y1);
+    }
+
+    /**
+     * Whether any edge of this polygon, translated, properly crosses an edge
+     * of {@code other} within the window.
+     */
+    private boolean crosses(double dx, double dy, PackedPolygon other,
+                            double x0, double y0, double x1, double y1) {
+        for (double[] a : rings) {
+            for (int i = 0; i + 3 < a.length; i += 2) {
+                double ax = a[i] + dx;
+                double ay = a[i + 1] + dy;
+                double bx = a[i + 2] + dx;
+                double by = a[i + 3] + dy;
+                if (outside(ax, ay, bx, by, x0, y0, x1, y1)) {
+                    continue;
+                }
+                for (double[] c : other.rings) {
+                    for (int j = 0; j + 3 < c.length; j += 2) {
+                        if (!outside(c[j], c[j + 1], c[j + 2], c[j + 3], x0, y0, x1, y1)
+                                && properlyCross(ax, ay, bx, by, c[j], c[j + 1], c[j + 2], c[j + 3])) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a vertex, edge midpoint or interior point of this polygon,
+     * translated by ({@code dx}, {@code dy}), lies strictly inside
+     * {@code other} translated by ({@code odx}, {@code ody}).
+     */
+    private boolean hasPointInside(double dx, double dy, PackedPolygon other, double odx, double ody,
+                                   double x0, double y0, double x1, double y1) {
+        for (int k = 0; k < interiorPoints.length; k += 2) {
+            double x = interiorPoints[k] + dx;
+            double y = interiorPoints[k + 1] + dy;
+            if (inWindow(x, y, x0, y0, x1, y1) && other.strictlyContains(x - odx, y - ody)) {
+                return true;
+            }
+        }
+        for (double[] ring : rings) {
+            for (int i = 0; i + 3 < ring.length; i += 2) {
+                double x = ring[i] + dx;
+                double y = ring[i + 1] + dy;
+                double mx = (x + ring[i + 2] + dx) / 2;
+                double my = (y + ring[i + 3] + dy) / 2;
+                if ((inWindow(x, y, x0, y0, x1, y1) && other.strictlyContains(x - odx, y - ody))
+                        || (inWindow(mx, my, x0, y0, x1, y1) && other.strictlyContains(mx - odx, my - ody))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Whether the envelope of segment ab misses the window. */
+    private static boolean outside(double ax, double ay, double bx, double by,
+                                   double x0, double y0, double x1, double y1) {
+        return Math.max(ax, bx) < x0 || Math.min(ax, bx) > x1 || Math.max(ay, by) < y0 || Math.min(ay, by) > y1;
+    }
+
+    private static boolean inWindow(double x, double y, double x0, double y0, double x1, double y1) {
+        return x >= x0 && x <= x1 && y >= y0 && y <= y1;
+    }
+
+    /**
+     * Even-odd point in polygon test over all rings; points within
+     * {@link #EPSILON} of an edge are on the boundary and not contained.
+     */
+    private boolean strictlyContains(double x, double y) {
+        if (x <= minX || x >= maxX || y <= minY || y >= maxY) {
+            return false;
+        }
+        boolean inside = false;
+        for (double[] ring : rings) {
+            for (int i = 0; i + 3 < ring.length; i += 2) {
+                double ay = ring[i + 1];
+                double by = ring[i + 3];
+                if ((ay < y - EPSILON && by < y - EPSILON) || (ay > y + EPSILON && by > y + EPSILON)) {
+                    continue;
+                }
+                double ax = ring[i];
+                double bx = ring[i + 2];
+                if (ax < x - EPSILON && bx < x - EPSILON) {
+                    continue;
+                }
+                if (segmentDistanceSq(x, y, ax, ay, bx, by) <= EPSILON * EPSILON) {
+                    return false;
+                }
+                if ((ay > y) != (by > y) && x < ax + (y - ay) * (bx - ax) / (by - ay)) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private static double segmentDistanceSq(double x, double y, double ax, double ay, double bx, double by) {
+        double ex = bx - ax;
+        double ey = by - ay;
+        double lengthSq = ex * ex + ey * ey;
+        double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((x - ax) * ex + (y - ay) * ey) / lengthSq));
+        double px = ax + t * ex - x;
+        double py = ay + t * ey - y;
+        return px * px + py * py;
+    }
+
+    /**
+     * Whether segments ab and cd cross at a single point inside both, with
+     * each endpoint more than {@link #EPSILON} away from the other segment's
+     * line. Touching and collinear segments do not cross.
+     */
+    private static boolean properlyCross(double ax, double ay, double bx, double by,
+                                         double cx, double cy, double dx, double dy) {
+        double ex = bx - ax;
+        double ey = by - ay;
+        double fx = dx - cx;
+        double fy = dy - cy;
+        double c = ex * (cy - ay) - ey * (cx - ax);
+        double d = ex * (dy - ay) - ey * (dx - ax);
+        double tolerance = EPSILON * Math.sqrt(ex * ex + ey * ey);
+        if (!(c > tolerance && d < -tolerance) && !(c < -tolerance && d > tolerance)) {
+            return false;
+        }
+        double a = fx * (ay - cy) - fy * (ax - cx);
+        double b = fx * (by - cy) - fy * (bx - cx);
+        tolerance = EPSILON * Math.sqrt(fx * fx + fy * fy);
+        return (a > tolerance && b < -tolerance) || (a < -tolerance && b > tolerance);
+    }
+}
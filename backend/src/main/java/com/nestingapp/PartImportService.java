@@ -0,0 +1,147 @@
+package com.nestingapp;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.geom.util.GeometryFixer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Imports uploaded part files in parallel on a bounded worker pool. Each file
+ * is parsed straight from its multipart stream; when all workers are busy and
+ * the queue is full the request thread parses the next file itself, which
+ * throttles very large uploads. Parsed parts are repaired if invalid and
+ * normalised before nesting.
+ */
+@Service
+public class PartImportService {
+
+    private final ThreadPoolExecutor workers;
+    private final SvgParser svgParser;
+    private final DxfParser dxfParser;
+    private final NestingMetrics metrics;
+
+    public PartImportService(int workerCount, double tolerance) {
+        this(workerCount, tolerance, NestingMetrics.NONE);
+    }
+
+    @Autowired
+    PartImportService(@Value("${nesting.import.workers:4}") int workerCount,
+                      @Value("${nesting.import.tolerance:0.01}") double tolerance,
+                      NestingMetrics metrics) {
+        this.svgParser = new SvgParser(tolerance);
+        this.dxfParser = new DxfParser(tolerance);
+        this.metrics = metrics;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "part-import");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Parses all files and returns their parts in upload order. Files with an
+     * unsupported extension are ignored.
+     *
+     * @throws ResponseStatusException with 400 if a file cannot be parsed
+     */
+    List<ImportedPart> importFiles(MultipartFile[] files) {
+        List<CompletableFuture<List<ImportedPart>>> futures = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> importFile(file), workers));
+        }
+        List<ImportedPart> parts = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<ImportedPart>> future : futures) {
+                parts.addAll(future.join());
+            }
+        } catch (CompletionException ex) {
+            futures.forEach(future -> future.cancel(false));
+            if (ex.getCause() instanceof ResponseStatusException status) {
+                throw status;
+            }
+            throw ex;
+        }
+        return parts;
+    }
+
+    private List<ImportedPart> importFile(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        String lower = name != null ? name.toLowerCase() : "";
+        String format;
+        if (lower.endsWith(".svg")) {
+            format = "svg";
+        } else if (lower.endsWith(".dxf")) {
+            format = "dxf";
+        } else {
+            return List.of();
+        }
+        Geometry geom;
+        Timer.Sample sample = Timer.start();
+        try {
+            if (format.equals("svg")) {
+                geom = svgParser.parseToGeometry(file);
+            } else {
+                try (InputStream in = file.getInputStream()) {
+                    geom = dxfParser.parse(in);
+                }
+            }
+        } catch (Exception ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Could not parse " + name + ": " + ex.getMessage(), ex);
+        } finally {
+            sample.stop(metrics.parse(format));
+        }
+        List<ImportedPart> parts = new ArrayList<>(geom.getNumGeometries());
+        for (int i = 0; i < geom.getNumGeometries(); i++) {
+            Geometry part = normalize(geom.getGeometryN(i));
+            if (part != null) {
+                parts.add(new ImportedPart(name, part));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Repairs an invalid outline (self-intersections, wrong ring nesting),
+     * brings it into JTS normal form and moves its envelope to the origin.
+     * Returns {@code null} for outlines without area.
+     */
+    static Geometry normalize(Geometry part) {
+        Geometry valid = part.isValid() ? part.copy() : GeometryFixer.fix(part);
+        if (valid.isEmpty() || valid.getArea() <= GeometryUtils.EPSILON) {
+            return null;
+        }
+        valid.normalize();
+        Envelope env = valid.getEnvelopeInternal();
+        return AffineTransformation.translationInstance(-env.getMinX(), -env.getMinY()).transform(valid);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
+
+/**
+ * A part read from an uploaded file, identified by the file name.
+ */
+record ImportedPart(String id, Geometry geometry) {}
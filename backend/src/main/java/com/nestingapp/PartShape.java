@@ -0,0 +1,208 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Rotation variant table of a distinct part shape. The spacing buffer is
+ * computed once and rotated to every allowed angle up front; each variant is
+ * stored with its envelope moved to the origin and redundant vertices
+ * removed, so the search only ever translates variants and never rotates a
+ * placed, already rotated outline again. With a positive tolerance the
+ * buffered outline is also simplified outward within the tolerance and each
+ * variant snapped to a grid of {@link #GRID_FRACTION} of it, so NFPs and
+ * overlap tests run on few, clean vertices and parts are never shrunk. Identical input parts share one
+ * immutable instance, which is also safe to share between search rounds and
+ * requests. The translation that moved each variant to the origin is kept so
+ * the unbuffered part can be put back where its outline was placed; it is
+ * taken relative to the part with its own envelope at the origin, so it holds
+ * for every part sharing the instance, wherever that part was drawn.
+ */
+final class PartShape {
+
+    /** Grid cell size of the precision stage relative to the tolerance. */
+    static final double GRID_FRACTION = 0.1;
+
+    /**
+     * Record kind of variant tables and their shifts in a {@link GeometryStore};
+     * kind 3 held shifts of the first part's absolute position.
+     */
+    static final byte STORE_KIND = 4;
+
+    private final double[] rotations;
+    private final Geometry[] outlines;
+    /**
+     * Translation of each rotated buffer of the part moved to the origin to
+     * the origin, as x, y pairs.
+     */
+    private final double[] shifts;
+
+    private PartShape(double[] rotations, Geometry[] outlines, double[] shifts) {
+        this.rotations = rotations;
+        this.outlines = outlines;
+        this.shifts = shifts;
+    }
+
+    private PartShape(Geometry part, double spacing, double tolerance, double[] rotations) {
+        this.rotations = rotations;
+        this.outlines = new Geometry[rotations.length];
+        this.shifts = new double[2 * rotations.length];
+        double grid = tolerance * GRID_FRACTION;
+        // simplification commutes with rotation, so it runs once per shape;
+        // the extra grid cell covers the vertex moves of the snapping below
+        Geometry buffered = GeometryUtils.applySpacing(toOrigin(part).transform(part), spacing);
+        buffered = tolerance > 0 ? GeometryUtils.simplifyOutward(buffered, tolerance, grid)
+            : TopologyPreservingSimplifier.simplify(buffered, GeometryUtils.EPSILON);
+        for (int i = 0; i < rotations.length; i++) {
+            Geometry rotated = rotations[i] == 0 ? buffered : GeometryUtils.rotate(buffered, rotations[i]);
+            Envelope env = rotated.getEnvelopeInternal();
+            shifts[2 * i] = -env.getMinX();
+            shifts[2 * i + 1] = -env.getMinY();
+            Geometry outline = AffineTransformation
+                .translationInstance(shifts[2 * i], shifts[2 * i + 1]).transform(rotated);
+            outlines[i] = tolerance > 0 ? GeometryUtils.snapToGrid(outline, grid) : outline;
+        }
+    }
+
+    int variantCount() {
+        return rotations.length;
+    }
+
+    /**
+     * Rotation in degrees of variant {@code variant}; variants are sorted by
+     * angle.
+     */
+    double rotation(int variant) {
+        return rotations[variant];
+    }
+
+    /**
+     * Buffered outline of variant {@code variant} with its envelope at the
+     * origin.
+     */
+    Geometry outline(int variant) {
+        return outlines[variant];
+    }
+
+    /**
+     * Transformation taking the unbuffered {@code part}, any of the parts
+     * sharing this shape, to its place in a layout, where the outline of
+     * {@code variant} was translated to {@code placed}.
+     */
+    AffineTransformation placement(Geometry part, int variant, Geometry placed) {
+        Envelope at = placed.getEnvelopeInternal();
+        Envelope origin = outlines[variant].getEnvelopeInternal();
+        return toOrigin(part).rotate(Math.toRadians(rotations[variant]))
+            .translate(shifts[2 * variant] + at.getMinX() - origin.getMinX(),
+                shifts[2 * variant + 1] + at.getMinY() - origin.getMinY());
+    }
+
+    private static AffineTransformation toOrigin(Geometry part) {
+        Envelope env = part.getEnvelopeInternal();
+        return AffineTransformation.translationInstance(-env.getMinX(), -env.getMinY());
+    }
+
+    /**
+     * Index of the variant with the given rotation, or {@code -1}.
+     */
+    int variantOf(double rotation) {
+        int variant = Arrays.binarySearch(rotations, rotation);
+        return variant >= 0 ? variant : -1;
+    }
+
+    /**
+     * Returns the shape of every part in input order. Parts whose JTS normal
+     * forms are equal up to a translation are detected by their canonical
+     * {@link ShapeKey}; together with equal spacing, tolerance and allowed
+     * rotations they map to the same instance, which is looked up in and
+     * added to {@code cache}. Tables missing from the cache are read from
+     * {@code store}, if given, before they are computed and stored.
+     * {@code rotations} holds the sorted allowed angles per part.
+     */
+    static List<PartShape> of(List<Geometry> parts, List<double[]> rotations, double spacing, double tolerance,
+                              Map<Key, PartShape> cache, GeometryStore store) {
+        Map<Key, PartShape> unique = new HashMap<>();
+        List<PartShape> shapes = new ArrayList<>(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            Geometry part = parts.get(i);
+            double[] angles = rotations.get(i);
+            Key key = new Key(ShapeKey.canonical(part, NfpCache.DEFAULT_QUANTUM), spacing, tolerance, angles);
+            PartShape shape = unique.get(key);
+            if (shape == null) {
+                synchronized (cache) {
+                    shape = cache.get(key);
+                }
+                if (shape == null) {
+                    shape = load(key, part, store);
+                    synchronized (cache) {
+                        cache.put(key, shape);
+                    }
+                }
+                unique.put(key, shape);
+            }
+            shapes.add(shape);
+        }
+        return shapes;
+    }
+
+    private static PartShape load(Key key, Geometry part, GeometryStore store) {
+        if (store == null) {
+            return new PartShape(part, key.spacing(), key.tolerance(), key.rotations());
+        }
+        GeometryStore.Digest.Builder digest = GeometryStore.Digest.builder(STORE_KIND)
+            .add(key.shape()).add(key.spacing()).add(key.tolerance());
+        for (double angle : key.rotations()) {
+            digest.add(angle);
+        }
+        GeometryStore.Digest id = digest.build();
+        int count = key.rotations().length;
+        List<Geometry> stored = store.get(id);
+        // the outlines are followed by the shifts as one point per variant
+        if (stored != null && stored.size() == count + 1 && stored.get(count) instanceof MultiPoint points
+                && points.getNumPoints() == count) {
+            double[] shifts = new double[2 * count];
+            for (int i = 0; i < count; i++) {
+                Coordinate shift = points.getGeometryN(i).getCoordinate();
+                shifts[2 * i] = shift.x;
+                shifts[2 * i + 1] = shift.y;
+            }
+            return new PartShape(key.rotations(), stored.subList(0, count).toArray(new Geometry[0]), shifts);
+        }
+        PartShape shape = new PartShape(part, key.spacing(), key.tolerance(), key.rotations());
+        Coordinate[] shifts = new Coordinate[count];
+        for (int i = 0; i < count; i++) {
+            shifts[i] = new Coordinate(shape.shifts[2 * i], shape.shifts[2 * i + 1]);
+        }
+        List<Geometry> record = new ArrayList<>(Arrays.asList(shape.outlines));
+        record.add(GeometryUtils.factory().createMultiPointFromCoords(shifts));
+        store.put(id, record);
+        return shape;
+    }
+
+    /** Identity of a variant table: the canonical outline, parameters and angles. */
+    record Key(ShapeKey shape, double spacing, double tolerance, double[] rotations) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && shape.equals(other.shape)
+                && Double.compare(spacing, other.spacing) == 0 && Double.compare(tolerance, other.tolerance) == 0
+                && Arrays.equals(rotations, other.rotations);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * shape.hashCode() + Double.hashCode(spacing);
+            hash = 31 * hash + Double.hashCode(tolerance);
+            return 31 * hash + Arrays.hashCode(rotations);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.locationtech.jts.algorithm.Area;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+/**
+ * Ordered list of placed parts backed by a quadtree of {@link PackedPolygon}
+ * copies. Overlap checks only run the packed predicate against parts whose
+ * envelopes intersect the candidate's, and a candidate can be given as a
+ * packed outline plus offset so no geometry is built for it. The quadtree
+ * supports incremental inserts and removals so a single index serves a whole
+ * placement pass and the hill climbing refinement. Interior rings of placed
+ * parts are kept as {@link Hole}s ordered by area, so small parts can be
+ * nested inside them.
+ */
+final class PlacedIndex {
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<PlacedPart> parts = new ArrayList<>();
+    private final List<Geometry> geometries = new ArrayList<>();
+    private final Quadtree tree = new Quadtree();
+    private final List<Hole> holes = new ArrayList<>();
+
+    PlacedIndex() {
+    }
+
+    PlacedIndex(List<PlacedPart> placed) {
+        placed.forEach(this::add);
+    }
+
+    void add(PlacedPart part) {
+        add(entries.size(), part);
+    }
+
+    void add(int position, PlacedPart part) {
+        Geometry g = part.geometry();
+        Entry entry = new Entry(g, PackedPolygon.of(g));
+        entries.add(position, entry);
+        parts.add(position, part);
+        geometries.add(position, g);
+        tree.insert(g.getEnvelopeInternal(), entry);
+        for (int i = 0; i < g.getNumGeometries(); i++) {
+            if (g.getGeometryN(i) instanceof Polygon p) {
+                for (int h = 0; h < p.getNumInteriorRing(); h++) {
+                    addHole(new Hole(p.getInteriorRingN(h), g));
+                }
+            }
+        }
+    }
+
+    private void addHole(Hole hole) {
+        int at = 0;
+        while (at < holes.size() && holes.get(at).area() <= hole.area()) {
+            at++;
+        }
+        holes.add(at, hole);
+    }
+
+    PlacedPart remove(int position) {
+        Entry entry = entries.remove(position);
+        geometries.remove(position);
+        tree.remove(entry.geometry().getEnvelopeInternal(), entry);
+        holes.removeIf(hole -> hole.owner() == entry.geometry());
+        return parts.remove(position);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Placed parts in insertion order. The returned view is read-only and
+     * reflects later modifications.
+     */
+    List<PlacedPart> parts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * Placed geometries in insertion order. The returned view is read-only and
+     * reflects later modifications.
+     */
+    List<Geometry> geometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+    /**
+     * Returns {@code true} when the candidate overlaps the interior of any
+     * placed part. Parts that merely touch the candidate are allowed.
+     */
+    boolean overlaps(Geometry candidate) {
+        return overlaps(PackedPolygon.of(candidate), 0, 0);
+    }
+
+    /**
+     * Variant of {@link #overlaps(Geometry)} for {@code candidate} translated
+     * by ({@code dx}, {@code dy}).
+     */
+    boolean overlaps(PackedPolygon candidate, double dx, double dy) {
+        Envelope env = new Envelope(candidate.minX() + dx, candidate.maxX() + dx,
+            candidate.minY() + dy, candidate.maxY() + dy);
+        for (Object item : tree.query(env)) {
+            Entry entry = (Entry) item;
+            if (candidate.overlaps(dx, dy, entry.packed())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Holes of placed parts that could take a part with envelope
+     * {@code partEnv} and the given area, smallest first.
+     */
+    List<Hole> holesFitting(Envelope partEnv, double partArea) {
+        List<Hole> fitting = new ArrayList<>();
+        for (Hole hole : holes) {
+            Envelope env = hole.envelope();
+            if (hole.area() >= partArea - GeometryUtils.EPSILON
+                    && env.getWidth() >= partEnv.getWidth() - GeometryUtils.EPSILON
+                    && env.getHeight() >= partEnv.getHeight() - GeometryUtils.EPSILON) {
+                fitting.add(hole);
+            }
+        }
+        return fitting;
+    }
+
+    /** Interior ring of the placed geometry {@code owner}. */
+    record Hole(LinearRing ring, Envelope envelope, double area, Geometry owner) {
+        private Hole(LinearRing ring, Geometry owner) {
+            this(ring, ring.getEnvelopeInternal(), Area.ofRing(ring.getCoordinateSequence()), owner);
+        }
+    }
+
+    private record Entry(Geometry geometry, PackedPolygon packed) {}
+}
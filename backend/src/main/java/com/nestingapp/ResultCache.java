@@ -0,0 +1,218 @@
+package com.nestingapp;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Layouts of finished searches keyed by a {@link Fingerprint} of the request,
+ * so resubmitting the same parts and configuration returns the cached layout
+ * instead of searching again. Parts are identified by their canonical
+ * {@link ShapeKey}, so the same files exported again at another position
+ * still match. A request that only differs in quantities or sheet size
+ * matches the same request family; the cached layout of the family then
+ * yields a {@link LayoutSeed} to start the new search from, unless
+ * {@code seedFamilies} is off. Entries expire after {@code ttl} and the
+ * least recently used ones are evicted beyond {@code maxEntries}.
+ */
+final class ResultCache {
+
+    /** Digest kind of exact request fingerprints. */
+    private static final byte EXACT_KIND = 16;
+    /** Digest kind of request family fingerprints. */
+    private static final byte FAMILY_KIND = 17;
+
+    private final int maxEntries;
+    private final Duration ttl;
+    private final boolean seedFamilies;
+    private final Clock clock;
+    private final Map<GeometryStore.Digest, Entry> exact;
+    private final Map<GeometryStore.Digest, Entry> families;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder seeded = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ResultCache(int maxEntries, Duration ttl, boolean seedFamilies) {
+        this(maxEntries, ttl, seedFamilies, Clock.systemUTC());
+    }
+
+    ResultCache(int maxEntries, Duration ttl, boolean seedFamilies, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.seedFamilies = seedFamilies;
+        this.clock = clock;
+        this.exact = lru(maxEntries);
+        this.families = lru(maxEntries);
+    }
+
+    private static Map<GeometryStore.Digest, Entry> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GeometryStore.Digest, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Fingerprints a request. The exact digest covers every part in order
+     * with its id and allowed angles, the sheet and the search parameters;
+     * the family digest leaves out the sheet size and the number of copies.
+     * Parallelism is left out of both since it does not change seeded
+     * results.
+     */
+    static Fingerprint fingerprint(List<Geometry> parts, List<String> ids, Polygon sheet, NestingConfig config) {
+        Map<Geometry, ShapeKey> shared = new IdentityHashMap<>();
+        List<ShapeKey> keys = new ArrayList<>(parts.size());
+        for (Geometry part : parts) {
+            keys.add(shared.computeIfAbsent(part, g -> ShapeKey.canonical(g, NfpCache.DEFAULT_QUANTUM)));
+        }
+        GeometryStore.Digest.Builder exact = GeometryStore.Digest.builder(EXACT_KIND);
+        GeometryStore.Digest.Builder family = GeometryStore.Digest.builder(FAMILY_KIND);
+        String strategy = config.strategy() != null ? config.strategy().toLowerCase(Locale.ROOT)
+            : NestingStrategy.SHUFFLE;
+        for (GeometryStore.Digest.Builder digest : List.of(exact, family)) {
+            digest.add(strategy).add(config.spacing()).add(config.tolerance()).add(config.maxNoImprovement())
+                .add(config.timeLimitMillis()).add(config.seed() != null ? 1 : 0)
+                .add(config.seed() != null ? config.seed() : 0);
+        }
+        Envelope env = sheet.getEnvelopeInternal();
+        exact.add(ShapeKey.of(sheet, NfpCache.DEFAULT_QUANTUM)).add(env.getMinX()).add(env.getMinY());
+        Set<Distinct> seen = new HashSet<>();
+        for (int i = 0; i < parts.size(); i++) {
+            String id = ids != null ? ids.get(i) : "";
+            double[] angles = config.allowedRotations(ids != null ? id : null);
+            add(exact, keys.get(i), id, angles);
+            if (seen.add(new Distinct(keys.get(i), id))) {
+                add(family, keys.get(i), id, angles);
+            }
+        }
+        return new Fingerprint(exact.build(), family.build(), keys);
+    }
+
+    private static void add(GeometryStore.Digest.Builder digest, ShapeKey key, String id, double[] angles) {
+        digest.add(key).add(id).add(angles.length);
+        for (double angle : angles) {
+            digest.add(angle);
+        }
+    }
+
+    /**
+     * Cached layout of exactly this request, or {@code null}; only hits are
+     * counted, a miss is counted by {@link #seed}.
+     */
+    synchronized NestingLayout get(Fingerprint request) {
+        Entry entry = live(exact, request.exact());
+        if (entry != null) {
+            hits.increment();
+            return entry.layout();
+        }
+        return null;
+    }
+
+    /**
+     * Starting point for a request whose family has a cached layout, or
+     * {@code null}. Parts take the place in the placement order and the
+     * rotation of a cached part with the same shape; parts without one, such
+     * as added copies, follow at the end. Counts the request as a miss when
+     * there is no seed or seeding is disabled.
+     */
+    synchronized LayoutSeed seed(Fingerprint request) {
+        Entry entry = seedFamilies ? live(families, request.family()) : null;
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        seeded.increment();
+        Map<ShapeKey, Deque<Integer>> unused = new HashMap<>();
+        for (int i = 0; i < request.keys().size(); i++) {
+            unused.computeIfAbsent(request.keys().get(i), k -> new ArrayDeque<>()).add(i);
+        }
+        int n = request.keys().size();
+        int[] order = new int[n];
+        double[] rotations = new double[n];
+        boolean[] taken = new boolean[n];
+        int k = 0;
+        for (List<PlacedPart> sheet : entry.layout().sheets()) {
+            for (PlacedPart placed : sheet) {
+                Deque<Integer> candidates = unused.get(entry.keys().get(placed.index()));
+                if (candidates != null && !candidates.isEmpty()) {
+                    int part = candidates.poll();
+                    order[k++] = part;
+                    rotations[part] = placed.rotation();
+                    taken[part] = true;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!taken[i]) {
+                order[k++] = i;
+                rotations[i] = Double.NaN;
+            }
+        }
+        return new LayoutSeed(order, rotations);
+    }
+
+    private Entry live(Map<GeometryStore.Digest, Entry> entries, GeometryStore.Digest digest) {
+        Entry entry = entries.get(digest);
+        if (entry != null && !clock.instant().isBefore(entry.expires())) {
+            entries.remove(digest);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the layout found for {@code request}.
+     */
+    synchronized void put(Fingerprint request, NestingLayout layout) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        Entry entry = new Entry(layout, request.keys(), clock.instant().plus(ttl));
+        exact.put(request.exact(), entry);
+        families.put(request.family(), entry);
+    }
+
+    synchronized int size() {
+        return exact.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long seeded() {
+        return seeded.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Identity of a request: digests of the exact request and of its family,
+     * and the canonical key of every part.
+     */
+    record Fingerprint(GeometryStore.Digest exact, GeometryStore.Digest family, List<ShapeKey> keys) {}
+
+    private record Entry(NestingLayout layout, List<ShapeKey> keys, Instant expires) {}
+
+    private record Distinct(ShapeKey key, String id) {}
+}
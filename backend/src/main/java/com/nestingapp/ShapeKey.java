@@ -0,0 +1,95 @@
+package com.nestingapp;
+
+import java.util.Arrays;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Content-addressed key of an outline: the ring structure and the quantized
+ * coordinates relative to the lower-left corner of the envelope, so copies of
+ * a shape at different positions map to the same key.
+ */
+final class ShapeKey {
+
+    private final long[] data;
+    private final int hash;
+
+    private ShapeKey(long[] data) {
+        this.data = data;
+        this.hash = Arrays.hashCode(data);
+    }
+
+    /**
+     * Key of {@code g} exactly as given; the vertex order and start points
+     * of the rings are part of the key.
+     */
+    static ShapeKey of(Geometry g, double quantum) {
+        Envelope env = g.getEnvelopeInternal();
+        double originX = env.isNull() ? 0 : env.getMinX();
+        double originY = env.isNull() ? 0 : env.getMinY();
+        long[] data = new long[1 + g.getNumGeometries() + 2 * g.getNumPoints() + countRings(g)];
+        int k = 0;
+        data[k++] = g.getNumGeometries();
+        for (int i = 0; i < g.getNumGeometries(); i++) {
+            Geometry component = g.getGeometryN(i);
+            if (component instanceof Polygon polygon) {
+                data[k++] = 1 + polygon.getNumInteriorRing();
+                k = encodeRing(data, k, polygon.getExteriorRing().getCoordinates(), originX, originY, quantum);
+                for (int r = 0; r < polygon.getNumInteriorRing(); r++) {
+                    k = encodeRing(data, k, polygon.getInteriorRingN(r).getCoordinates(), originX, originY, quantum);
+                }
+            } else {
+                data[k++] = 1;
+                k = encodeRing(data, k, component.getCoordinates(), originX, originY, quantum);
+            }
+        }
+        return new ShapeKey(data);
+    }
+
+    /**
+     * Key of the JTS normal form of {@code g}, so outlines that only differ
+     * in ring orientation, start vertex or component order are equal.
+     */
+    static ShapeKey canonical(Geometry g, double quantum) {
+        Geometry normalized = g.copy();
+        normalized.normalize();
+        return of(normalized, quantum);
+    }
+
+    private static int encodeRing(long[] data, int k, Coordinate[] coords, double originX, double originY,
+                                  double quantum) {
+        data[k++] = coords.length;
+        for (Coordinate c : coords) {
+            data[k++] = Math.round((c.x - originX) / quantum);
+            data[k++] = Math.round((c.y - originY) / quantum);
+        }
+        return k;
+    }
+
+    private static int countRings(Geometry g) {
+        int rings = 0;
+        for (int i = 0; i < g.getNumGeometries(); i++) {
+            Geometry component = g.getGeometryN(i);
+            rings += component instanceof Polygon polygon ? 1 + polygon.getNumInteriorRing() : 1;
+        }
+        return rings;
+    }
+
+    /** Adds this key to a {@link GeometryStore} digest. */
+    void update(GeometryStore.Digest.Builder digest) {
+        digest.add(data);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ShapeKey other && hash == other.hash && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,53 @@
+package com.nestingapp;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+
+/**
+ * One physical sheet of a layout together with the parts placed on it.
+ * Rectangular sheets are handled entirely through their inner-fit rectangle;
+ * other outlines additionally check candidates against a prepared sheet.
+ */
+final class SheetBin {
+
+    private final Envelope bounds;
+    private final PreparedGeometry prepared;
+    private final PlacedIndex placed = new PlacedIndex();
+
+    SheetBin(Polygon sheet) {
+        this.bounds = sheet.getEnvelopeInternal();
+        this.prepared = sheet.isRectangle() ? null : PreparedGeometryFactory.prepare(sheet);
+    }
+
+    PlacedIndex placed() {
+        return placed;
+    }
+
+    Envelope bounds() {
+        return bounds;
+    }
+
+    /**
+     * Translations that keep a part with envelope {@code partEnv} inside the
+     * sheet bounds. Returns a null envelope when the part is larger than the
+     * sheet.
+     */
+    Envelope innerFit(Envelope partEnv) {
+        return GeometryUtils.innerFitRectangle(bounds, partEnv);
+    }
+
+    boolean isRectangular() {
+        return prepared == null;
+    }
+
+    /**
+     * Exact containment test for non-rectangular sheets; rectangular sheets
+     * are fully covered by {@link #innerFit}.
+     */
+    boolean contains(Geometry candidate) {
+        return prepared == null || prepared.covers(candidate);
+    }
+}
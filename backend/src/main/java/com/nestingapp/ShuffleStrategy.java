@@ -0,0 +1,55 @@
+package com.nestingapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Random restarts: every round shuffles the parts, places them first-fit with
+ * their first allowed rotation and refines the rotations by hill climbing.
+ * With {@code parallelism > 1} up to that many rounds run concurrently on the
+ * search executor; results are still consumed in round order so the stopping
+ * rules and the returned layout are the same as for a sequential run with the
+ * same seed. Rounds still running when the search is done give up early,
+ * see {@link NestingSearch#done()}.
+ */
+final class ShuffleStrategy implements NestingStrategy {
+
+    @Override
+    public void search(NestingSearch search) {
+        int parallelism = Math.max(1, search.config().parallelism());
+        Deque<CompletableFuture<ScoredLayout>> inFlight = new ArrayDeque<>();
+        int round = 0;
+        try {
+            while (!search.done()) {
+                ScoredLayout layout;
+                if (parallelism == 1) {
+                    layout = round(search, search.random(round++));
+                } else {
+                    while (inFlight.size() < parallelism) {
+                        Random random = search.random(round++);
+                        inFlight.add(CompletableFuture.supplyAsync(() -> round(search, random), search.executor()));
+                    }
+                    layout = inFlight.poll().join();
+                }
+                search.completeRound(layout);
+            }
+        } finally {
+            inFlight.forEach(f -> f.cancel(false));
+        }
+    }
+
+    private static ScoredLayout round(NestingSearch search, Random random) {
+        List<Integer> shuffled = new ArrayList<>(search.partCount());
+        for (int i = 0; i < search.partCount(); i++) {
+            shuffled.add(i);
+        }
+        Collections.shuffle(shuffled, random);
+        int[] order = shuffled.stream().mapToInt(Integer::intValue).toArray();
+        return search.evaluate(order, new int[order.length], true);
+    }
+}
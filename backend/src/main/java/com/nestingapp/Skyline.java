@@ -0,0 +1,113 @@
+package com.nestingapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Skyline of the rectangles placed on a sheet, used for bottom-left-fill
+ * placement of part envelopes. The skyline is the upper contour of all
+ * rectangles as a list of horizontal segments sorted by x; a new rectangle
+ * rests on the highest segment below its span. Space under overhangs is not
+ * reused, which keeps every query linear in the number of segments.
+ */
+final class Skyline {
+
+    private final Envelope bounds;
+    private final List<Segment> segments = new ArrayList<>();
+
+    Skyline(Envelope bounds) {
+        this.bounds = bounds;
+        segments.add(new Segment(bounds.getMinX(), bounds.getMinY(), bounds.getWidth()));
+    }
+
+    /**
+     * Returns the lowest position, then leftmost, for the lower-left corner
+     * of a {@code width} x {@code height} rectangle that {@code accept}s it,
+     * as {@code {x, y}}, or {@code null} if there is none.
+     */
+    double[] find(double width, double height, Position accept) {
+        double[] best = null;
+        for (int i = 0; i < segments.size(); i++) {
+            double x = segments.get(i).x;
+            if (x + width > bounds.getMaxX() + GeometryUtils.EPSILON) {
+                break;
+            }
+            double y = restingHeight(i, width);
+            if (y + height > bounds.getMaxY() + GeometryUtils.EPSILON) {
+                continue;
+            }
+            if ((best == null || y < best[1] - GeometryUtils.EPSILON) && accept.test(x, y)) {
+                best = new double[] { x, y };
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Raises the skyline over a rectangle placed at ({@code x}, {@code y}).
+     */
+    void add(double x, double y, double width, double height) {
+        double right = x + width;
+        int i = 0;
+        while (i < segments.size() && segments.get(i).end() <= x + GeometryUtils.EPSILON) {
+            i++;
+        }
+        List<Segment> replaced = new ArrayList<>(3);
+        int j = i;
+        while (j < segments.size() && segments.get(j).x < right - GeometryUtils.EPSILON) {
+            j++;
+        }
+        if (i < segments.size() && segments.get(i).x < x - GeometryUtils.EPSILON) {
+            Segment first = segments.get(i);
+            replaced.add(new Segment(first.x, first.y, x - first.x));
+        }
+        replaced.add(new Segment(x, y + height, width));
+        if (j > i) {
+            Segment last = segments.get(j - 1);
+            if (last.end() > right + GeometryUtils.EPSILON) {
+                replaced.add(new Segment(right, last.y, last.end() - right));
+            }
+        }
+        segments.subList(i, j).clear();
+        segments.addAll(i, replaced);
+        merge();
+    }
+
+    /**
+     * Height at which a rectangle of the given width starting at segment
+     * {@code i} rests: the highest segment below its span.
+     */
+    private double restingHeight(int i, double width) {
+        double right = segments.get(i).x + width;
+        double y = segments.get(i).y;
+        for (int k = i + 1; k < segments.size() && segments.get(k).x < right - GeometryUtils.EPSILON; k++) {
+            y = Math.max(y, segments.get(k).y);
+        }
+        return y;
+    }
+
+    private void merge() {
+        for (int k = segments.size() - 1; k > 0; k--) {
+            Segment left = segments.get(k - 1);
+            Segment right = segments.get(k);
+            if (Math.abs(left.y - right.y) <= GeometryUtils.EPSILON) {
+                segments.set(k - 1, new Segment(left.x, left.y, right.end() - left.x));
+                segments.remove(k);
+            }
+        }
+    }
+
+    /** Extra test of a candidate position, e.g. containment in the sheet. */
+    @FunctionalInterface
+    interface Position {
+        boolean test(double x, double y);
+    }
+
+    private record Segment(double x, double y, double width) {
+        double end() {
+            return x + width;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.nestingapp;
+
+/**
+ * Cursor over the compact number lists of SVG attributes ({@code d},
+ * {@code points}, {@code transform}). Numbers may be separated by
+ * whitespace, a comma or nothing at all when the next one starts with a sign
+ * or a second decimal point, as in {@code "M1-2.5.5"}.
+ */
+final class SvgNumbers {
+
+    private final String text;
+    private int position;
+
+    SvgNumbers(String text) {
+        this.text = text;
+    }
+
+    boolean atEnd() {
+        skipWhitespace();
+        return position >= text.length();
+    }
+
+    /**
+     * Returns the next non-whitespace character without consuming it, or
+     * {@code 0} at the end.
+     */
+    char peek() {
+        skipWhitespace();
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+
+    /**
+     * Consumes {@code c} if it is the next non-whitespace character.
+     */
+    boolean consume(char c) {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if a number follows, skipping one comma.
+     */
+    boolean hasNumber() {
+        skipSeparator();
+        if (position >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(position);
+        return isDigit(c) || c == '-' || c == '+' || c == '.';
+    }
+
+    double number() {
+        skipSeparator();
+        int start = position;
+        if (position < text.length() && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+            position++;
+        }
+        int digits = skipDigits();
+        if (position < text.length() && text.charAt(position) == '.') {
+            position++;
+            digits += skipDigits();
+        }
+        if (digits == 0) {
+            position = start;
+            throw new IllegalArgumentException("Expected a number at offset " + start + " in: " + text);
+        }
+        if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+            int mark = position++;
+            if (position < text.length() && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+                position++;
+            }
+            if (skipDigits() == 0) {
+                position = mark;
+            }
+        }
+        return Double.parseDouble(text.substring(start, position));
+    }
+
+    /**
+     * Reads an arc flag, which may be written without a separator.
+     */
+    boolean flag() {
+        skipSeparator();
+        char c = position < text.length() ? text.charAt(position) : 0;
+        if (c != '0' && c != '1') {
+            throw new IllegalArgumentException("Expected an arc flag at offset " + position + " in: " + text);
+        }
+        position++;
+        return c == '1';
+    }
+
+    /**
+     * Reads a run of letters, such as a transform function name.
+     */
+    String word() {
+        skipSeparator();
+        int start = position;
+        while (position < text.length() && Character.isLetter(text.charAt(position))) {
+            position++;
+        }
+        return text.substring(start, position);
+    }
+
+    /**
+     * Consumes the next command letter. Returns {@code 0} if the next token
+     * is not a letter.
+     */
+    char command() {
+        char c = peek();
+        if (Character.isLetter(c)) {
+            position++;
+            return c;
+        }
+        return 0;
+    }
+
+    private int skipDigits() {
+        int start = position;
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            position++;
+        }
+        return position - start;
+    }
+
+    private void skipSeparator() {
+        skipWhitespace();
+        if (position < text.length() && text.charAt(position) == ',') {
+            position++;
+            skipWhitespace();
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -1,25 +1,85 @@
 package com.nestingapp;
 
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.PathIterator;
+import java.io.InputStream;
 import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+import org.apache.batik.bridge.BridgeContext;
+import org.apache.batik.bridge.DocumentLoader;
+import org.apache.batik.bridge.GVTBuilder;
+import org.apache.batik.bridge.UserAgentAdapter;
+import org.apache.batik.gvt.CanvasGraphicsNode;
+import org.apache.batik.gvt.CompositeGraphicsNode;
+import org.apache.batik.gvt.GraphicsNode;
+import org.apache.batik.gvt.ShapeNode;
 import org.apache.batik.util.XMLResourceDescriptor;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Polygon;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import org.springframework.core.io.InputStreamSource;
 import org.w3c.dom.svg.SVGDocument;
 
 /**
- * Simple SVG parser built on Apache Batik. Supports extracting polygons from
- * the document into JTS geometries.
+ * SVG parser extracting part outlines as JTS polygons.
+ * <p>
+ * Documents are read with StAX, without building a DOM: {@code path},
+ * {@code rect}, {@code circle}, {@code ellipse}, {@code line},
+ * {@code polyline} and {@code polygon} elements are transformed by the nested
+ * {@code transform} attributes and flattened in double precision so curves
+ * and arcs deviate at most {@code tolerance} user units. The resulting contours are
+ * assembled as for DXF files: contours inside other contours become holes.
+ * <p>
+ * Lengths in absolute units are converted to user units at the CSS ratio of
+ * 96 per inch. Documents referencing other elements through {@code use}, or
+ * with lengths relative to the viewport or font such as percentages, need
+ * the full document, so they fall back to Batik's SVG DOM and graphics tree.
  */
 public class SvgParser {
 
+    /** Default chord tolerance in user units. */
+    public static final double DEFAULT_TOLERANCE = 0.01;
+
+    private static final String SVG_NAMESPACE = "http://www.w3.org/2000/svg";
+    private static final int MAX_SUBDIVISIONS = 16;
+
+    /** Elements whose content is not rendered directly. */
+    private static final Set<String> NON_RENDERED = Set.of(
+        "defs", "symbol", "clipPath", "mask", "pattern", "marker", "metadata",
+        "linearGradient", "radialGradient", "filter", "style", "script", "title", "desc");
+
+    /** User units (CSS pixels) per absolute length unit. */
+    private static final Map<String, Double> UNITS = Map.of(
+        "px", 1.0, "in", 96.0, "cm", 96 / 2.54, "mm", 96 / 25.4, "pt", 96 / 72.0, "pc", 16.0);
+
+    private static final XMLInputFactory XML_INPUT = createInputFactory();
+
+    private final double tolerance;
+
+    public SvgParser() {
+        this(DEFAULT_TOLERANCE);
+    }
+
+    public SvgParser(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("tolerance must be positive");
+        }
+        this.tolerance = tolerance;
+    }
+
     /**
      * Parses raw SVG content into an {@link SVGDocument}.
      */
@@ -27,8 +87,8 @@ public class SvgParser {
         // Batik's parser requires the root element to declare the SVG namespace.
         // Tests may supply minimal snippets without an xmlns attribute, so we
         // inject it if missing to keep parsing permissive.
-        if (!svgContent.contains("xmlns=\"http://www.w3.org/2000/svg\"")) {
-            svgContent = svgContent.replaceFirst("<svg", "<svg xmlns=\"http://www.w3.org/2000/svg\"");
+        if (!svgContent.contains("xmlns=\"" + SVG_NAMESPACE + "\"")) {
+            svgContent = svgContent.replaceFirst("<svg", "<svg xmlns=\"" + SVG_NAMESPACE + "\"");
         }
         String parser = XMLResourceDescriptor.getXMLParserClassName();
         SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
@@ -36,35 +96,279 @@ public class SvgParser {
     }
 
     /**
-     * Parses the provided SVG string into a JTS {@link Geometry} collection. At
-     * present only <polygon> elements are supported.
+     * Parses the provided SVG string into a JTS {@link Geometry} collection.
      */
     public Geometry parseToGeometry(String svgContent) throws Exception {
-        SVGDocument doc = parse(svgContent);
-        NodeList polyNodes = doc.getElementsByTagName("polygon");
-        List<Polygon> polys = new ArrayList<>();
-        for (int i = 0; i < polyNodes.getLength(); i++) {
-            Element el = (Element) polyNodes.item(i);
-            String points = el.getAttribute("points");
-            String[] pairs = points.trim().split("\\s+");
-            List<Coordinate> coords = new ArrayList<>();
-            for (String pair : pairs) {
-                String[] xy = pair.split(",");
-                if (xy.length == 2) {
-                    try {
-                        double x = Double.parseDouble(xy[0]);
-                        double y = Double.parseDouble(xy[1]);
-                        coords.add(new Coordinate(x, y));
-                    } catch (NumberFormatException ex) {
-                        // ignore invalid coordinate
+        Geometry geometry = stream(XML_INPUT.createXMLStreamReader(new StringReader(svgContent)));
+        return geometry != null ? geometry : fromDocument(parse(svgContent));
+    }
+
+    /**
+     * Parses an SVG file into a JTS {@link Geometry} collection. The source is
+     * opened a second time only if the document needs the DOM fallback.
+     */
+    public Geometry parseToGeometry(InputStreamSource source) throws Exception {
+        try (InputStream in = source.getInputStream()) {
+            Geometry geometry = stream(XML_INPUT.createXMLStreamReader(in));
+            if (geometry != null) {
+                return geometry;
+            }
+        }
+        try (InputStream in = source.getInputStream()) {
+            return fromDocument(parse(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Streams the document and returns its polygons, or {@code null} if it
+     * contains constructs that need the DOM.
+     */
+    private Geometry stream(XMLStreamReader xml) throws XMLStreamException {
+        ContourAssembler contours = new ContourAssembler(tolerance);
+        Deque<AffineTransform> transforms = new ArrayDeque<>();
+        transforms.push(new AffineTransform());
+        int skipped = 0;
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    transforms.pop();
+                    if (skipped > 0) {
+                        skipped--;
                     }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = xml.getLocalName();
+                if (skipped > 0 || NON_RENDERED.contains(name) || "none".equals(attribute(xml, "display"))) {
+                    skipped++;
+                    transforms.push(transforms.peek());
+                    continue;
+                }
+                if ("use".equals(name) || "tref".equals(name)) {
+                    return null;
+                }
+                AffineTransform transform = transforms.peek();
+                String local = attribute(xml, "transform");
+                if (local != null) {
+                    transform = new AffineTransform(transform);
+                    transform.concatenate(transform(local));
+                }
+                transforms.push(transform);
+                element(xml, name, transform, contours);
+            }
+        } catch (RelativeLength ex) {
+            return null;
+        } finally {
+            xml.close();
+        }
+        return contours.toGeometry();
+    }
+
+    private void element(XMLStreamReader xml, String name, AffineTransform transform, ContourAssembler contours) {
+        SvgPathBuilder out = new SvgPathBuilder(contours, transform, tolerance, !"line".equals(name));
+        switch (name) {
+            case "path" -> {
+                String d = attribute(xml, "d");
+                if (d != null) {
+                    out.path(d);
+                }
+            }
+            case "rect" -> {
+                double w = length(xml, "width");
+                double h = length(xml, "height");
+                if (w > 0 && h > 0) {
+                    String rx = attribute(xml, "rx");
+                    String ry = attribute(xml, "ry");
+                    // a missing radius defaults to the other one
+                    out.rect(length(xml, "x"), length(xml, "y"), w, h,
+                        Math.min(length(rx != null ? rx : ry), w / 2),
+                        Math.min(length(ry != null ? ry : rx), h / 2));
                 }
             }
-            if (coords.size() >= 3) {
-                polys.add(GeometryUtils.createPolygon(coords));
+            case "circle" -> {
+                double r = length(xml, "r");
+                if (r > 0) {
+                    out.ellipse(length(xml, "cx"), length(xml, "cy"), r, r);
+                }
+            }
+            case "ellipse" -> {
+                double rx = length(xml, "rx");
+                double ry = length(xml, "ry");
+                if (rx > 0 && ry > 0) {
+                    out.ellipse(length(xml, "cx"), length(xml, "cy"), rx, ry);
+                }
+            }
+            case "line" -> {
+                out.moveTo(length(xml, "x1"), length(xml, "y1"));
+                out.lineTo(length(xml, "x2"), length(xml, "y2"));
+            }
+            case "polygon", "polyline" -> {
+                String points = attribute(xml, "points");
+                if (points != null) {
+                    out.points(points, "polygon".equals(name));
+                }
+            }
+            default -> {
+                return;
             }
         }
-        GeometryFactory gf = GeometryUtils.factory();
-        return gf.createGeometryCollection(polys.toArray(new Geometry[0]));
+        out.finish();
+    }
+
+    /**
+     * Parses a {@code transform} attribute into the product of its transform
+     * functions.
+     */
+    static AffineTransform transform(String value) {
+        AffineTransform result = new AffineTransform();
+        SvgNumbers in = new SvgNumbers(value);
+        while (!in.atEnd()) {
+            String function = in.word();
+            if (function.isEmpty() || !in.consume('(')) {
+                throw new IllegalArgumentException("Invalid SVG transform: " + value);
+            }
+            double[] args = new double[6];
+            int count = 0;
+            while (count < args.length && in.hasNumber()) {
+                args[count++] = in.number();
+            }
+            if (!in.consume(')')) {
+                throw new IllegalArgumentException("Invalid SVG transform: " + value);
+            }
+            switch (function) {
+                case "matrix" -> result.concatenate(
+                    new AffineTransform(args[0], args[1], args[2], args[3], args[4], args[5]));
+                case "translate" -> result.translate(args[0], args[1]);
+                case "scale" -> result.scale(args[0], count > 1 ? args[1] : args[0]);
+                case "rotate" -> result.rotate(Math.toRadians(args[0]), args[1], args[2]);
+                case "skewX" -> result.shear(Math.tan(Math.toRadians(args[0])), 0);
+                case "skewY" -> result.shear(0, Math.tan(Math.toRadians(args[0])));
+                default -> throw new IllegalArgumentException("Unknown SVG transform " + function);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flattens a Java2D shape from Batik's graphics tree and adds each subpath
+     * to the contours. Open subpaths are closed as SVG fills do.
+     */
+    private void addShape(Shape shape, AffineTransform transform, ContourAssembler contours) {
+        PathIterator it = new FlatteningPathIterator(shape.getPathIterator(transform), tolerance, MAX_SUBDIVISIONS);
+        double[] coords = new double[6];
+        CoordinateList current = new CoordinateList();
+        for (; !it.isDone(); it.next()) {
+            switch (it.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO -> {
+                    contours.addPath(current, true);
+                    current = new CoordinateList();
+                    current.add(new Coordinate(coords[0], coords[1]), false);
+                }
+                case PathIterator.SEG_LINETO -> current.add(new Coordinate(coords[0], coords[1]), false);
+                case PathIterator.SEG_CLOSE -> {
+                    contours.addRing(current);
+                    // a new subpath after closepath starts at the same point
+                    Coordinate start = current.isEmpty() ? null : current.getCoordinate(0);
+                    current = new CoordinateList();
+                    if (start != null) {
+                        current.add(start.copy(), false);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        contours.addPath(current, true);
+    }
+
+    /**
+     * Collects the shapes of Batik's graphics tree, used for documents the
+     * streaming reader cannot resolve.
+     */
+    private Geometry fromDocument(SVGDocument document) {
+        UserAgentAdapter agent = new UserAgentAdapter();
+        BridgeContext context = new BridgeContext(agent, new DocumentLoader(agent));
+        context.setDynamicState(BridgeContext.STATIC);
+        GraphicsNode root = new GVTBuilder().build(context, document);
+        ContourAssembler contours = new ContourAssembler(tolerance);
+        collect(root, new AffineTransform(), contours);
+        return contours.toGeometry();
+    }
+
+    private void collect(GraphicsNode node, AffineTransform parent, ContourAssembler contours) {
+        AffineTransform transform = parent;
+        // the canvas transform maps the viewBox to the viewport; parts stay in user units
+        if (node.getTransform() != null && !(node instanceof CanvasGraphicsNode)) {
+            transform = new AffineTransform(parent);
+            transform.concatenate(node.getTransform());
+        }
+        if (node instanceof ShapeNode shapeNode && shapeNode.getShape() != null) {
+            addShape(shapeNode.getShape(), transform, contours);
+        } else if (node instanceof CompositeGraphicsNode composite) {
+            for (Object child : composite.getChildren()) {
+                collect((GraphicsNode) child, transform, contours);
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader xml, String name) {
+        for (int i = 0; i < xml.getAttributeCount(); i++) {
+            if (name.equals(xml.getAttributeLocalName(i))) {
+                return xml.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static double length(XMLStreamReader xml, String name) {
+        return length(attribute(xml, name));
+    }
+
+    /**
+     * Parses a length and converts it to user units; a missing value is
+     * zero.
+     *
+     * @throws RelativeLength for percentages, font relative units and
+     *         anything else that is left to Batik to resolve or reject
+     */
+    private static double length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        String v = value.trim();
+        int end = v.length();
+        while (end > 0 && Character.isLetter(v.charAt(end - 1))) {
+            end--;
+        }
+        Double scale = end == v.length() ? Double.valueOf(1) : UNITS.get(v.substring(end));
+        if (scale == null) {
+            throw new RelativeLength();
+        }
+        try {
+            return Double.parseDouble(v.substring(0, end)) * scale;
+        } catch (NumberFormatException ex) {
+            throw new RelativeLength();
+        }
+    }
+
+    /** Thrown while streaming for lengths only the DOM fallback can resolve. */
+    private static final class RelativeLength extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private RelativeLength() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // never resolve DTDs or external entities from uploaded files
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
     }
 }
@@ -0,0 +1,301 @@
+package com.nestingapp;
+
+import java.awt.geom.AffineTransform;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
+
+/**
+ * Flattens SVG outlines in double precision. Path data and basic shapes are
+ * converted to line segments in the coordinate system given by
+ * {@code transform}; Bézier curves are subdivided after transforming their
+ * control points and elliptical arcs are sampled so the deviation after the
+ * transform stays within the tolerance. Closed subpaths are added to the
+ * {@link ContourAssembler} as rings and open ones as paths.
+ */
+final class SvgPathBuilder {
+
+    private final ContourAssembler contours;
+    private final AffineTransform transform;
+    private final double tolerance;
+    private final double scale;
+    private final boolean filled;
+    private final double[] point = new double[2];
+
+    private CoordinateList current = new CoordinateList();
+    private double x;
+    private double y;
+    private double startX;
+    private double startY;
+    private char lastCurve;
+    private double controlX;
+    private double controlY;
+
+    /**
+     * Creates a builder for one element. Open subpaths of filled elements are
+     * closed if no other contour continues them.
+     */
+    SvgPathBuilder(ContourAssembler contours, AffineTransform transform, double tolerance, boolean filled) {
+        this.contours = contours;
+        this.transform = transform;
+        this.tolerance = tolerance;
+        this.filled = filled;
+        this.scale = Math.max(Math.hypot(transform.getScaleX(), transform.getShearY()),
+            Math.hypot(transform.getShearX(), transform.getScaleY()));
+    }
+
+    /**
+     * Appends SVG path data. As in SVG user agents, the path is rendered up
+     * to the first error in the data.
+     */
+    void path(String data) {
+        SvgNumbers in = new SvgNumbers(data);
+        char command = 0;
+        try {
+            while (!in.atEnd()) {
+                char next = in.command();
+                if (next != 0) {
+                    command = next;
+                } else if (command == 0 || command == 'z' || command == 'Z') {
+                    break;
+                }
+                segment(in, command);
+                // coordinates following a moveto are implicit linetos
+                if (command == 'M') {
+                    command = 'L';
+                } else if (command == 'm') {
+                    command = 'l';
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            // keep the segments read so far
+        }
+    }
+
+    private void segment(SvgNumbers in, char command) {
+        boolean relative = Character.isLowerCase(command);
+        double ox = relative ? x : 0;
+        double oy = relative ? y : 0;
+        switch (Character.toUpperCase(command)) {
+            case 'M' -> moveTo(ox + in.number(), oy + in.number());
+            case 'L' -> lineTo(ox + in.number(), oy + in.number());
+            case 'H' -> lineTo(ox + in.number(), y);
+            case 'V' -> lineTo(x, oy + in.number());
+            case 'C' -> cubicTo(ox + in.number(), oy + in.number(), ox + in.number(), oy + in.number(),
+                ox + in.number(), oy + in.number());
+            case 'S' -> {
+                double x1 = lastCurve == 'C' ? 2 * x - controlX : x;
+                double y1 = lastCurve == 'C' ? 2 * y - controlY : y;
+                cubicTo(x1, y1, ox + in.number(), oy + in.number(), ox + in.number(), oy + in.number());
+            }
+            case 'Q' -> quadTo(ox + in.number(), oy + in.number(), ox + in.number(), oy + in.number());
+            case 'T' -> {
+                double x1 = lastCurve == 'Q' ? 2 * x - controlX : x;
+                double y1 = lastCurve == 'Q' ? 2 * y - controlY : y;
+                quadTo(x1, y1, ox + in.number(), oy + in.number());
+            }
+            case 'A' -> {
+                double rx = in.number();
+                double ry = in.number();
+                double angle = in.number();
+                boolean largeArc = in.flag();
+                boolean sweep = in.flag();
+                arcTo(rx, ry, angle, largeArc, sweep, ox + in.number(), oy + in.number());
+            }
+            case 'Z' -> closePath();
+            default -> throw new IllegalArgumentException("Unknown path command " + command);
+        }
+    }
+
+    void moveTo(double px, double py) {
+        contours.addPath(current, filled);
+        current = new CoordinateList();
+        x = px;
+        y = py;
+        startX = px;
+        startY = py;
+        lastCurve = 0;
+        current.add(map(px, py), false);
+    }
+
+    void lineTo(double px, double py) {
+        begin();
+        x = px;
+        y = py;
+        lastCurve = 0;
+        current.add(map(px, py), false);
+    }
+
+    void cubicTo(double x1, double y1, double x2, double y2, double px, double py) {
+        begin();
+        Coordinate p0 = map(x, y);
+        Coordinate p1 = map(x1, y1);
+        Coordinate p2 = map(x2, y2);
+        Coordinate p3 = map(px, py);
+        Tessellation.cubic(current, p0.x, p0.y, p1.x, p1.y, p2.x, p2.y, p3.x, p3.y, tolerance);
+        x = px;
+        y = py;
+        lastCurve = 'C';
+        controlX = x2;
+        controlY = y2;
+    }
+
+    void quadTo(double x1, double y1, double px, double py) {
+        begin();
+        Coordinate p0 = map(x, y);
+        Coordinate p1 = map(x1, y1);
+        Coordinate p2 = map(px, py);
+        Tessellation.quadratic(current, p0.x, p0.y, p1.x, p1.y, p2.x, p2.y, tolerance);
+        x = px;
+        y = py;
+        lastCurve = 'Q';
+        controlX = x1;
+        controlY = y1;
+    }
+
+    /**
+     * Elliptical arc in SVG endpoint parameterization, converted to its centre
+     * parameterization as described in the SVG implementation notes.
+     */
+    void arcTo(double rx, double ry, double angleDegrees, boolean largeArc, boolean sweep, double px, double py) {
+        if (rx == 0 || ry == 0 || (px == x && py == y)) {
+            lineTo(px, py);
+            return;
+        }
+        begin();
+        rx = Math.abs(rx);
+        ry = Math.abs(ry);
+        double phi = Math.toRadians(angleDegrees);
+        double cos = Math.cos(phi);
+        double sin = Math.sin(phi);
+        double dx = (x - px) / 2;
+        double dy = (y - py) / 2;
+        double x1 = cos * dx + sin * dy;
+        double y1 = -sin * dx + cos * dy;
+        double lambda = (x1 * x1) / (rx * rx) + (y1 * y1) / (ry * ry);
+        if (lambda > 1) {
+            rx *= Math.sqrt(lambda);
+            ry *= Math.sqrt(lambda);
+        }
+        double numerator = rx * rx * ry * ry - rx * rx * y1 * y1 - ry * ry * x1 * x1;
+        double denominator = rx * rx * y1 * y1 + ry * ry * x1 * x1;
+        double coefficient = Math.sqrt(Math.max(0, numerator / denominator)) * (largeArc == sweep ? -1 : 1);
+        double cx1 = coefficient * rx * y1 / ry;
+        double cy1 = -coefficient * ry * x1 / rx;
+        double cx = cos * cx1 - sin * cy1 + (x + px) / 2;
+        double cy = sin * cx1 + cos * cy1 + (y + py) / 2;
+        double theta = Math.atan2((y1 - cy1) / ry, (x1 - cx1) / rx);
+        double delta = Math.atan2((-y1 - cy1) / ry, (-x1 - cx1) / rx) - theta;
+        if (sweep && delta < 0) {
+            delta += 2 * Math.PI;
+        } else if (!sweep && delta > 0) {
+            delta -= 2 * Math.PI;
+        }
+        int n = Tessellation.arcSegments(Math.max(rx, ry) * scale, delta, tolerance);
+        for (int i = 1; i < n; i++) {
+            double t = theta + delta * i / n;
+            double ex = rx * Math.cos(t);
+            double ey = ry * Math.sin(t);
+            current.add(map(cx + cos * ex - sin * ey, cy + sin * ex + cos * ey), false);
+        }
+        x = px;
+        y = py;
+        lastCurve = 0;
+        current.add(map(px, py), false);
+    }
+
+    void closePath() {
+        if (current.size() > 0) {
+            contours.addRing(current);
+            current = new CoordinateList();
+        }
+        x = startX;
+        y = startY;
+        lastCurve = 0;
+    }
+
+    /**
+     * Hands the last open subpath to the contours.
+     */
+    void finish() {
+        contours.addPath(current, filled);
+        current = new CoordinateList();
+    }
+
+    /**
+     * Rectangle with optional rounded corners, following the equivalent path
+     * of the SVG specification.
+     */
+    void rect(double rx0, double ry0, double width, double height, double rx, double ry) {
+        if (rx <= 0 || ry <= 0) {
+            moveTo(rx0, ry0);
+            lineTo(rx0 + width, ry0);
+            lineTo(rx0 + width, ry0 + height);
+            lineTo(rx0, ry0 + height);
+        } else {
+            moveTo(rx0 + rx, ry0);
+            lineTo(rx0 + width - rx, ry0);
+            arcTo(rx, ry, 0, false, true, rx0 + width, ry0 + ry);
+            lineTo(rx0 + width, ry0 + height - ry);
+            arcTo(rx, ry, 0, false, true, rx0 + width - rx, ry0 + height);
+            lineTo(rx0 + rx, ry0 + height);
+            arcTo(rx, ry, 0, false, true, rx0, ry0 + height - ry);
+            lineTo(rx0, ry0 + ry);
+            arcTo(rx, ry, 0, false, true, rx0 + rx, ry0);
+        }
+        closePath();
+    }
+
+    void ellipse(double cx, double cy, double rx, double ry) {
+        moveTo(cx + rx, cy);
+        arcTo(rx, ry, 0, false, true, cx - rx, cy);
+        arcTo(rx, ry, 0, false, true, cx + rx, cy);
+        closePath();
+    }
+
+    /**
+     * Appends a {@code points} list as for {@code polyline}, or
+     * {@code polygon} if {@code closed} is set. An odd trailing coordinate is
+     * ignored.
+     */
+    void points(String points, boolean closed) {
+        SvgNumbers in = new SvgNumbers(points);
+        boolean first = true;
+        try {
+            while (in.hasNumber()) {
+                double px = in.number();
+                double py = in.number();
+                if (first) {
+                    moveTo(px, py);
+                    first = false;
+                } else {
+                    lineTo(px, py);
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            // keep the points read so far
+        }
+        if (closed && !first) {
+            closePath();
+        }
+    }
+
+    /**
+     * Starts a subpath at the current point if a drawing command follows a
+     * closepath or opens the data.
+     */
+    private void begin() {
+        if (current.isEmpty()) {
+            startX = x;
+            startY = y;
+            current.add(map(x, y), false);
+        }
+    }
+
+    private Coordinate map(double px, double py) {
+        point[0] = px;
+        point[1] = py;
+        transform.transform(point, 0, point, 0, 1);
+        return new Coordinate(point[0], point[1]);
+    }
+}
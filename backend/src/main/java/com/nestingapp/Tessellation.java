@@ -0,0 +1,214 @@
+package com.nestingapp;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateList;
+
+/**
+ * Flattens curves into line segments whose deviation from the exact curve is
+ * at most a given tolerance. Every method appends to a {@link CoordinateList}
+ * without repeating the current end point, so consecutive curves can be
+ * written into one contour.
+ */
+final class Tessellation {
+
+    private static final int MAX_DEPTH = 16;
+
+    private Tessellation() {
+    }
+
+    /**
+     * Number of chords needed to approximate a circular arc so that the
+     * sagitta of each chord stays below {@code tolerance}.
+     */
+    static int arcSegments(double radius, double sweep, double tolerance) {
+        double angle = Math.abs(sweep);
+        if (radius <= tolerance) {
+            return Math.max(1, (int) Math.ceil(angle / (Math.PI / 2)));
+        }
+        double step = 2 * Math.acos(1 - tolerance / radius);
+        return Math.max(1, (int) Math.ceil(angle / step));
+    }
+
+    /**
+     * Appends a circular arc around ({@code cx}, {@code cy}) from angle
+     * {@code start} over {@code sweep} radians, counter-clockwise for a
+     * positive sweep.
+     */
+    static void arc(CoordinateList out, double cx, double cy, double radius, double start, double sweep,
+                    double tolerance) {
+        int n = arcSegments(radius, sweep, tolerance);
+        for (int i = 0; i <= n; i++) {
+            double a = start + sweep * i / n;
+            out.add(new Coordinate(cx + radius * Math.cos(a), cy + radius * Math.sin(a)), false);
+        }
+    }
+
+    /**
+     * Appends the segment from ({@code x1}, {@code y1}) to ({@code x2},
+     * {@code y2}) with the given DXF bulge, the tangent of a quarter of the
+     * included angle. A zero bulge is a straight segment.
+     */
+    static void bulge(CoordinateList out, double x1, double y1, double x2, double y2, double bulge,
+                      double tolerance) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double chord = Math.sqrt(dx * dx + dy * dy);
+        if (Math.abs(bulge) < 1e-12 || chord < 1e-12) {
+            out.add(new Coordinate(x1, y1), false);
+            out.add(new Coordinate(x2, y2), false);
+            return;
+        }
+        // centre lies on the chord's left normal for positive (counter-clockwise) bulges
+        double offset = (1 - bulge * bulge) / (4 * bulge);
+        double cx = (x1 + x2) / 2 - dy * offset;
+        double cy = (y1 + y2) / 2 + dx * offset;
+        double rx = x1 - cx;
+        double ry = y1 - cy;
+        double radius = Math.sqrt(rx * rx + ry * ry);
+        double start = Math.atan2(ry, rx);
+        arc(out, cx, cy, radius, start, 4 * Math.atan(bulge), tolerance);
+        out.add(new Coordinate(x2, y2), false);
+    }
+
+    /**
+     * Appends a cubic Bézier curve from ({@code x0}, {@code y0}) to
+     * ({@code x3}, {@code y3}), subdividing until the control points lie
+     * within {@code tolerance} of the chord.
+     */
+    static void cubic(CoordinateList out, double x0, double y0, double x1, double y1, double x2, double y2,
+                      double x3, double y3, double tolerance) {
+        out.add(new Coordinate(x0, y0), false);
+        cubic(out, x0, y0, x1, y1, x2, y2, x3, y3, tolerance, 0);
+    }
+
+    /**
+     * Appends a quadratic Bézier curve, as the equivalent cubic curve.
+     */
+    static void quadratic(CoordinateList out, double x0, double y0, double x1, double y1, double x2, double y2,
+                          double tolerance) {
+        cubic(out, x0, y0, x0 + 2 * (x1 - x0) / 3, y0 + 2 * (y1 - y0) / 3,
+            x2 + 2 * (x1 - x2) / 3, y2 + 2 * (y1 - y2) / 3, x2, y2, tolerance);
+    }
+
+    private static void cubic(CoordinateList out, double x0, double y0, double x1, double y1, double x2, double y2,
+                              double x3, double y3, double tolerance, int depth) {
+        if (depth >= MAX_DEPTH || (distanceToSegment(x1, y1, x0, y0, x3, y3) <= tolerance
+                && distanceToSegment(x2, y2, x0, y0, x3, y3) <= tolerance)) {
+            out.add(new Coordinate(x3, y3), false);
+            return;
+        }
+        // de Casteljau split at t = 0.5
+        double x01 = (x0 + x1) / 2;
+        double y01 = (y0 + y1) / 2;
+        double x12 = (x1 + x2) / 2;
+        double y12 = (y1 + y2) / 2;
+        double x23 = (x2 + x3) / 2;
+        double y23 = (y2 + y3) / 2;
+        double xa = (x01 + x12) / 2;
+        double ya = (y01 + y12) / 2;
+        double xb = (x12 + x23) / 2;
+        double yb = (y12 + y23) / 2;
+        double xm = (xa + xb) / 2;
+        double ym = (ya + yb) / 2;
+        cubic(out, x0, y0, x01, y01, xa, ya, xm, ym, tolerance, depth + 1);
+        cubic(out, xm, ym, xb, yb, x23, y23, x3, y3, tolerance, depth + 1);
+    }
+
+    /**
+     * Appends a (rational) B-spline of the given degree. {@code weights} may
+     * be {@code null} for a non-rational spline; {@code knots} must hold
+     * {@code count + degree + 1} values.
+     */
+    static void bSpline(CoordinateList out, int degree, double[] knots, double[] xs, double[] ys,
+                        double[] weights, int count, double tolerance) {
+        double[] work = new double[3 * (degree + 1)];
+        double[] p0 = new double[2];
+        double[] p1 = new double[2];
+        double[] mid = new double[2];
+        for (int k = degree; k < count; k++) {
+            double u0 = knots[k];
+            double u1 = knots[k + 1];
+            if (u1 <= u0) {
+                continue;
+            }
+            deBoor(degree, knots, xs, ys, weights, count, u0, p0, work);
+            out.add(new Coordinate(p0[0], p0[1]), false);
+            // two halves per span so S-shaped spans are not mistaken for flat ones
+            double um = (u0 + u1) / 2;
+            deBoor(degree, knots, xs, ys, weights, count, um, mid, work);
+            flatten(out, degree, knots, xs, ys, weights, count, u0, p0, um, mid, tolerance, 0, work);
+            deBoor(degree, knots, xs, ys, weights, count, u1, p1, work);
+            flatten(out, degree, knots, xs, ys, weights, count, um, mid, u1, p1, tolerance, 0, work);
+        }
+    }
+
+    /**
+     * Clamped uniform knot vector for {@code count} control points.
+     */
+    static double[] uniformKnots(int degree, int count) {
+        double[] knots = new double[count + degree + 1];
+        for (int i = 0; i < knots.length; i++) {
+            knots[i] = Math.max(0, Math.min(i - degree, count - degree));
+        }
+        return knots;
+    }
+
+    private static void flatten(CoordinateList out, int degree, double[] knots, double[] xs, double[] ys,
+                                double[] weights, int count, double u0, double[] p0, double u1, double[] p1,
+                                double tolerance, int depth, double[] work) {
+        double um = (u0 + u1) / 2;
+        double[] mid = new double[2];
+        deBoor(degree, knots, xs, ys, weights, count, um, mid, work);
+        if (depth < MAX_DEPTH && distanceToSegment(mid[0], mid[1], p0[0], p0[1], p1[0], p1[1]) > tolerance) {
+            flatten(out, degree, knots, xs, ys, weights, count, u0, p0, um, mid, tolerance, depth + 1, work);
+            flatten(out, degree, knots, xs, ys, weights, count, um, mid, u1, p1, tolerance, depth + 1, work);
+        } else {
+            out.add(new Coordinate(p1[0], p1[1]), false);
+        }
+    }
+
+    /**
+     * Evaluates the spline at {@code u} with de Boor's algorithm in
+     * homogeneous coordinates.
+     */
+    private static void deBoor(int degree, double[] knots, double[] xs, double[] ys, double[] weights,
+                               int count, double u, double[] result, double[] work) {
+        int k = degree;
+        while (k < count - 1 && u >= knots[k + 1]) {
+            k++;
+        }
+        int wOffset = degree + 1;
+        int hOffset = 2 * (degree + 1);
+        for (int j = 0; j <= degree; j++) {
+            int i = k - degree + j;
+            double w = weights != null ? weights[i] : 1;
+            work[j] = xs[i] * w;
+            work[wOffset + j] = ys[i] * w;
+            work[hOffset + j] = w;
+        }
+        for (int r = 1; r <= degree; r++) {
+            for (int j = degree; j >= r; j--) {
+                int i = k - degree + j;
+                double denominator = knots[i + degree - r + 1] - knots[i];
+                double alpha = denominator == 0 ? 0 : (u - knots[i]) / denominator;
+                work[j] = (1 - alpha) * work[j - 1] + alpha * work[j];
+                work[wOffset + j] = (1 - alpha) * work[wOffset + j - 1] + alpha * work[wOffset + j];
+                work[hOffset + j] = (1 - alpha) * work[hOffset + j - 1] + alpha * work[hOffset + j];
+            }
+        }
+        double w = work[hOffset + degree];
+        result[0] = work[degree] / w;
+        result[1] = work[wOffset + degree] / w;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - ax - t * dx;
+        double ey = py - ay - t * dy;
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
@@ -0,0 +1,70 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * Tests for the streaming DXF parser.
+ */
+public class DxfParserTest {
+
+    private static String dxf(String... entities) {
+        return String.join("\n", "0", "SECTION", "2", "ENTITIES", String.join("\n", entities),
+            "0", "ENDSEC", "0", "EOF");
+    }
+
+    @Test
+    void chainsLinesAndArcsIntoOnePolygon() throws Exception {
+        // 2x2 square whose top edge is replaced by a half circle of radius 1
+        String content = dxf(
+            "0", "LINE", "10", "0", "20", "0", "11", "2", "21", "0",
+            "0", "LINE", "10", "0", "20", "2", "11", "0", "21", "0",
+            "0", "ARC", "10", "1", "20", "2", "40", "1", "50", "0", "51", "180",
+            "0", "LINE", "10", "2", "20", "0", "11", "2", "21", "2");
+        Geometry geom = new DxfParser(0.001).parse(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(1, geom.getNumGeometries());
+        assertEquals(4 + Math.PI / 2, geom.getGeometryN(0).getArea(), 0.01);
+    }
+
+    @Test
+    void nestedContoursBecomeHoles() {
+        String content = dxf(
+            "0", "LWPOLYLINE", "90", "4", "70", "1",
+            "10", "0", "20", "0", "10", "10", "20", "0", "10", "10", "20", "10", "10", "0", "20", "10",
+            "0", "CIRCLE", "10", "5", "20", "5", "40", "2",
+            "0", "CIRCLE", "10", "5", "20", "5", "40", "1");
+        Geometry geom = new DxfParser(0.001).parse(content);
+        assertEquals(2, geom.getNumGeometries());
+        Polygon frame = assertInstanceOf(Polygon.class, geom.getGeometryN(0));
+        assertEquals(1, frame.getNumInteriorRing());
+        assertEquals(100 - 4 * Math.PI, frame.getArea(), 0.01);
+        assertEquals(Math.PI, geom.getGeometryN(1).getArea(), 0.01);
+    }
+
+    @Test
+    void tessellatesBulgesAndSplines() {
+        // closed polyline with two half-circle bulges is a unit-radius circle
+        String circle = dxf(
+            "0", "LWPOLYLINE", "90", "2", "70", "1",
+            "10", "-1", "20", "0", "42", "1", "10", "1", "20", "0", "42", "1");
+        assertEquals(Math.PI, new DxfParser(0.0001).parse(circle).getArea(), 0.001);
+
+        // rational quadratic spline for a quarter circle, closed by two lines
+        String sector = dxf(
+            "0", "SPLINE", "70", "12", "71", "2", "72", "6", "73", "3",
+            "40", "0", "40", "0", "40", "0", "40", "1", "40", "1", "40", "1",
+            "41", "1", "41", String.valueOf(Math.sqrt(0.5)), "41", "1",
+            "10", "1", "20", "0", "10", "1", "20", "1", "10", "0", "20", "1",
+            "0", "LINE", "10", "0", "20", "1", "11", "0", "21", "0",
+            "0", "LINE", "10", "0", "20", "0", "11", "1", "21", "0");
+        assertEquals(Math.PI / 4, new DxfParser(0.0001).parse(sector).getArea(), 0.001);
+    }
+}
@@ -0,0 +1,136 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Tests for the persistent geometry store.
+ */
+public class GeometryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final Geometry square = GeometryUtils.createSheet(1, 1);
+    private final Geometry triangle = GeometryUtils.createPolygon(List.of(
+        new Coordinate(0, 0),
+        new Coordinate(3, 0),
+        new Coordinate(0, 2)
+    ));
+
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        Path file = dir.resolve("store.bin");
+        GeometryStore.Digest first = digest(1);
+        GeometryStore.Digest second = digest(2);
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            store.put(first, List.of(square, triangle));
+            store.put(second, List.of(triangle));
+            assertEquals(List.of(square, triangle), store.get(first));
+        }
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            assertEquals(2, store.size());
+            assertEquals(List.of(square, triangle), store.get(first));
+            assertEquals(List.of(triangle), store.get(second));
+            assertNull(store.get(digest(3)));
+        }
+    }
+
+    @Test
+    void tornRecordIsDiscardedOnOpen() throws IOException {
+        Path file = dir.resolve("store.bin");
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            store.put(digest(1), List.of(square));
+            store.put(digest(2), List.of(triangle));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            assertEquals(1, store.size());
+            assertNull(store.get(digest(2)));
+            store.put(digest(2), List.of(triangle));
+            assertEquals(List.of(triangle), store.get(digest(2)));
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void storeIsUsedByOneOwnerAtATime() throws IOException {
+        Path file = dir.resolve("store.bin");
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            assertThrows(IOException.class, () -> GeometryStore.open(file, Long.MAX_VALUE));
+        }
+        Files.writeString(dir.resolve("other.bin"), "not a store");
+        assertThrows(IOException.class, () -> GeometryStore.open(dir.resolve("other.bin"), Long.MAX_VALUE));
+    }
+
+    @Test
+    void nfpsAreServedFromTheStoreAfterARestart() throws IOException {
+        Path file = dir.resolve("store.bin");
+        AtomicInteger computed = new AtomicInteger();
+        NoFitPolygonEngine counting = new NoFitPolygonEngine() {
+            @Override
+            public Geometry minkowskiSum(Geometry a, Geometry b) {
+                return GeometryUtils.minkowskiSum(a, b);
+            }
+
+            @Override
+            public Geometry noFitPolygon(Geometry base, Geometry moving) {
+                computed.incrementAndGet();
+                return GeometryUtils.noFitPolygon(base, moving);
+            }
+        };
+        Geometry fresh;
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            fresh = new NfpCache(counting, 10, NfpCache.DEFAULT_QUANTUM, store).noFitPolygon(triangle, square);
+        }
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            Geometry stored = new NfpCache(counting, 10, NfpCache.DEFAULT_QUANTUM, store)
+                .noFitPolygon(triangle, square);
+            assertTrue(stored.equalsExact(fresh));
+        }
+        assertEquals(1, computed.get());
+    }
+
+    @Test
+    void variantTablesKeepTheirPlacementAfterARestart() throws IOException {
+        Path file = dir.resolve("store.bin");
+        List<double[]> rotations = List.of(new double[] { 0, 90 });
+        PartShape fresh;
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            fresh = PartShape.of(List.of(triangle), rotations, 0.5, 0, new HashMap<>(), store).get(0);
+        }
+        try (GeometryStore store = GeometryStore.open(file, Long.MAX_VALUE)) {
+            PartShape stored = PartShape.of(List.of(triangle), rotations, 0.5, 0, new HashMap<>(), store).get(0);
+            assertEquals(1, store.size());
+            for (int v = 0; v < 2; v++) {
+                Geometry placed = stored.outline(v);
+                assertTrue(stored.placement(triangle, v, placed).transform(triangle)
+                    .equalsExact(fresh.placement(triangle, v, fresh.outline(v)).transform(triangle), 1e-9));
+                assertTrue(placed.covers(stored.placement(triangle, v, placed).transform(triangle)));
+            }
+        }
+    }
+
+    private static GeometryStore.Digest digest(long value) {
+        return GeometryStore.Digest.builder((byte) 0).add(value).build();
+    }
+}
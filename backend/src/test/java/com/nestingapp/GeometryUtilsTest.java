@@ -1,12 +1,14 @@
 package com.nestingapp;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
 
 /**
  * Tests for geometry helper utilities such as Minkowski sums and NFPs.
@@ -25,4 +27,40 @@ public class GeometryUtilsTest {
         assertEquals(2.0, nfp.getEnvelopeInternal().getWidth(), 1e-6);
         assertEquals(2.0, nfp.getEnvelopeInternal().getHeight(), 1e-6);
     }
+
+    @Test
+    void minkowskiSumOfConcavePart() {
+        Geometry lShape = GeometryUtils.createPolygon(List.of(
+            new Coordinate(0, 0),
+            new Coordinate(2, 0),
+            new Coordinate(2, 1),
+            new Coordinate(1, 1),
+            new Coordinate(1, 2),
+            new Coordinate(0, 2)
+        ));
+        Geometry square = GeometryUtils.createPolygon(List.of(
+            new Coordinate(0, 0),
+            new Coordinate(1, 0),
+            new Coordinate(1, 1),
+            new Coordinate(0, 1)
+        ));
+        Geometry sum = GeometryUtils.minkowskiSum(lShape, square);
+        assertEquals(8.0, sum.getArea(), 1e-6);
+    }
+
+    @Test
+    void minkowskiSumKeepsHoles() {
+        Polygon frame = (Polygon) GeometryUtils.createSheet(10, 10)
+            .difference(GeometryUtils.createPolygon(List.of(
+                new Coordinate(3, 3),
+                new Coordinate(7, 3),
+                new Coordinate(7, 7),
+                new Coordinate(3, 7)
+            )));
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        Geometry sum = GeometryUtils.minkowskiSum(frame, square);
+        assertTrue(sum instanceof Polygon);
+        assertEquals(1, ((Polygon) sum).getNumInteriorRing());
+        assertEquals(121.0 - 9.0, sum.getArea(), 1e-6);
+    }
 }
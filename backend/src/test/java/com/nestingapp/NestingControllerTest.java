@@ -1,34 +1,271 @@
 package com.nestingapp;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 class NestingControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test
     void nestEndpointReturnsPlacement() throws Exception {
         String svg = "<svg><polygon points='0,0 1,0 1,1 0,1'/></svg>";
         MockMultipartFile file = new MockMultipartFile("files", "square.svg", "image/svg+xml", svg.getBytes());
-        String config = new ObjectMapper().writeValueAsString(new NestingConfig(0, 0, 10, 10, 1));
+        String config = mapper.writeValueAsString(new NestingConfig(0, 0, 10, 10, 1));
         String response = mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
             .andExpect(status().isOk())
             .andReturn().getResponse().getContentAsString();
-        JsonNode root = new ObjectMapper().readTree(response);
+        String jobId = mapper.readTree(response).get("jobId").asText();
+        assertNotNull(jobId);
+
+        JsonNode status = awaitCompletion(jobId);
+        assertEquals("completed", status.get("status").asText());
+        assertEquals(100, status.get("progress").asInt());
+
+        String result = mockMvc.perform(get("/api/result/" + jobId))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        JsonNode root = mapper.readTree(result);
         assertEquals(1, root.get("nestedParts").size());
     }
+
+    @Test
+    void quantitiesRepeatPartsOfAFile() throws Exception {
+        String svg = "<svg><polygon points='0,0 1,0 1,1 0,1'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "square.svg", "image/svg+xml", svg.getBytes());
+        String config = mapper.writeValueAsString(
+            new NestingConfig(0, 0, 10, 10, 1).withSeed(1L).withQuantities(Map.of("square.svg", 3)));
+        String response = mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String jobId = mapper.readTree(response).get("jobId").asText();
+        assertEquals("completed", awaitCompletion(jobId).get("status").asText());
+
+        String result = mockMvc.perform(get("/api/result/" + jobId))
+            .andReturn().getResponse().getContentAsString();
+        JsonNode parts = mapper.readTree(result).get("nestedParts");
+        assertEquals(3, parts.size());
+        for (JsonNode part : parts) {
+            assertEquals("square.svg", part.get("id").asText());
+        }
+    }
+
+    @Test
+    void streamReplaysBestLayoutOfFinishedJob() throws Exception {
+        String svg = "<svg><polygon points='0,0 1,0 1,1 0,1'/><polygon points='0,0 2,0 2,1 0,1'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "parts.svg", "image/svg+xml", svg.getBytes());
+        String config = mapper.writeValueAsString(new NestingConfig(0, 90, 10, 10, 2));
+        String response = mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString();
+        String jobId = mapper.readTree(response).get("jobId").asText();
+        awaitCompletion(jobId);
+
+        MvcResult stream = mockMvc.perform(get("/api/stream/" + jobId))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        stream.getAsyncResult(5000);
+        String events = stream.getResponse().getContentAsString();
+        assertTrue(events.contains("event:layout"));
+        assertTrue(events.contains("\"full\":true"));
+        assertTrue(events.contains("event:done"));
+    }
+
+    @Test
+    void pipelineMetricsArePublishedForPrometheus() throws Exception {
+        String svg = "<svg><polygon points='0,0 1,0 1,1 0,1'/><polygon points='0,0 2,0 2,1 0,1'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "parts.svg", "image/svg+xml", svg.getBytes());
+        String config = mapper.writeValueAsString(new NestingConfig(0, 90, 10, 10, 1));
+        String response = mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString();
+        awaitCompletion(mapper.readTree(response).get("jobId").asText());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(metrics.contains("nesting_import_parse_seconds_count{format=\"svg\"}"));
+        assertTrue(metrics.contains("nesting_place_candidates_count"));
+        assertTrue(metrics.contains("nesting_nfp_cache_requests_total{result=\"miss\"}"));
+        assertTrue(metrics.contains("nesting_hillclimb_rounds_total"));
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromTheResultCache() throws Exception {
+        String svg = "<svg><polygon points='0,0 3,0 0,2'/><polygon points='0,0 2,0 2,1 0,1'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "cached.svg", "image/svg+xml", svg.getBytes());
+        String config = mapper.writeValueAsString(new NestingConfig(0, 90, 10, 10, 2).withSeed(7L));
+        String first = mapper.readTree(mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString()).get("jobId").asText();
+        awaitCompletion(first);
+
+        JsonNode repeated = mapper.readTree(mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString());
+        assertEquals("completed", repeated.get("status").asText());
+        assertEquals(mockMvc.perform(get("/api/result/" + first)).andReturn().getResponse().getContentAsString(),
+            mockMvc.perform(get("/api/result/" + repeated.get("jobId").asText()))
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(mockMvc.perform(get("/actuator/prometheus")).andReturn().getResponse().getContentAsString()
+            .contains("outcome=\"cached\""));
+    }
+
+    @Test
+    void updateKeepsPlacementsWhenPartsChange() throws Exception {
+        String squares = "<svg><polygon points='0,0 1,0 1,1 0,1'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "squares.svg", "image/svg+xml", squares.getBytes());
+        String config = mapper.writeValueAsString(
+            new NestingConfig(0, 0, 10, 10, 1).withSeed(3L).withQuantities(Map.of("squares.svg", 3)));
+        String first = mapper.readTree(mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString()).get("jobId").asText();
+        awaitCompletion(first);
+        JsonNode before = mapper.readTree(mockMvc.perform(get("/api/result/" + first))
+            .andReturn().getResponse().getContentAsString()).get("nestedParts");
+
+        String bar = "<svg><polygon points='0,0 3,0 3,1 0,1'/></svg>";
+        MockMultipartFile added = new MockMultipartFile("files", "bar.svg", "image/svg+xml", bar.getBytes());
+        String response = mockMvc.perform(multipart("/api/nest/" + first + "/update").file(added)
+                .param("remove", "squares.svg"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String updated = mapper.readTree(response).get("jobId").asText();
+        assertEquals("completed", awaitCompletion(updated).get("status").asText());
+
+        JsonNode after = mapper.readTree(mockMvc.perform(get("/api/result/" + updated))
+            .andReturn().getResponse().getContentAsString()).get("nestedParts");
+        assertEquals(3, after.size());
+        int kept = 0;
+        for (JsonNode part : after) {
+            for (JsonNode old : before) {
+                if (part.equals(old)) {
+                    kept++;
+                }
+            }
+        }
+        assertEquals(2, kept);
+        mockMvc.perform(multipart("/api/nest/" + first + "/update").param("remove", "missing.svg"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void expensiveConfigurationsAreRejected() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("files", "square.svg", "image/svg+xml",
+            "<svg><polygon points='0,0 1,0 1,1 0,1'/></svg>".getBytes());
+        List<Double> angles = new ArrayList<>();
+        for (int i = 0; i <= 360; i++) {
+            angles.add(i + 0.5);
+        }
+        for (NestingConfig config : List.of(
+                new NestingConfig(0, 1e-9, 10, 10, 1),
+                new NestingConfig(0, 90, 10, 10, 1).withRotations(Map.of("square.svg", angles)),
+                new NestingConfig(0, 90, 10, 10, 1).withQuantities(Map.of("square.svg", 1_001)),
+                new NestingConfig(0, 90, 10, 10, 1).withQuantities(Map.of("other.svg", Integer.MAX_VALUE)))) {
+            mockMvc.perform(multipart("/api/nest").file(file).param("config", mapper.writeValueAsString(config)))
+                .andExpect(status().isBadRequest());
+        }
+
+        // 11 parts of 1000 copies each exceed the limit on the total
+        MockMultipartFile many = new MockMultipartFile("files", "many.svg", "image/svg+xml",
+            ("<svg>" + "<polygon points='0,0 1,0 1,1 0,1'/>".repeat(11) + "</svg>").getBytes());
+        mockMvc.perform(multipart("/api/nest").file(many).param("config", mapper.writeValueAsString(
+                new NestingConfig(0, 90, 10, 10, 1).withQuantities(Map.of("many.svg", 1_000)))))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportStreamsRotatedPartOutlines() throws Exception {
+        String svg = "<svg><polygon points='0,0 4,0 4,2 0,2'/></svg>";
+        MockMultipartFile file = new MockMultipartFile("files", "bar.svg", "image/svg+xml", svg.getBytes());
+        String config = mapper.writeValueAsString(new NestingConfig(0.5, 0, 10, 10, 1).withSeed(1L)
+            .withRotations(Map.of("bar.svg", List.of(90.0))));
+        String response = mockMvc.perform(multipart("/api/nest").file(file).param("config", config))
+            .andReturn().getResponse().getContentAsString();
+        String jobId = mapper.readTree(response).get("jobId").asText();
+        assertEquals("completed", awaitCompletion(jobId).get("status").asText());
+
+        String lines = exported(jobId, "jsonl", "application/x-ndjson").getContentAsString();
+        String[] records = lines.split("\n");
+        assertEquals(2, records.length);
+        assertEquals(1, mapper.readTree(records[0]).get("parts").asInt());
+        JsonNode part = mapper.readTree(records[1]);
+        assertEquals("bar.svg", part.get("id").asText());
+        assertEquals(90, part.get("rotation").asDouble(), 1e-9);
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (JsonNode vertex : part.get("coordinates").get(0).get(0)) {
+            minX = Math.min(minX, vertex.get(0).asDouble());
+            minY = Math.min(minY, vertex.get(1).asDouble());
+            maxX = Math.max(maxX, vertex.get(0).asDouble());
+            maxY = Math.max(maxY, vertex.get(1).asDouble());
+        }
+        // the real outline sits the spacing inside the placed buffer
+        assertEquals(2, maxX - minX, 1e-6);
+        assertEquals(4, maxY - minY, 1e-6);
+        assertTrue(minX >= 0.5 - 1e-6 && maxX <= 10 - 0.5 + 1e-6);
+        assertTrue(minY >= 0.5 - 1e-6);
+
+        assertTrue(exported(jobId, "svg", "image/svg+xml").getContentAsString().contains("data-id=\"bar.svg\""));
+        byte[] binary = exported(jobId, "bin", "application/octet-stream").getContentAsByteArray();
+        assertEquals(LayoutExport.MAGIC, ByteBuffer.wrap(binary).getInt());
+        mockMvc.perform(get("/api/export/" + jobId).param("format", "pdf")).andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse exported(String jobId, String format, String mediaType) throws Exception {
+        MvcResult export = mockMvc.perform(get("/api/export/" + jobId).param("format", format))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(export))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(mediaType))
+            .andReturn().getResponse();
+    }
+
+    @Test
+    void unknownJobIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/status/missing")).andExpect(status().isNotFound());
+    }
+
+    private JsonNode awaitCompletion(String jobId) throws Exception {
+        for (int i = 0; i < 200; i++) {
+            String body = mockMvc.perform(get("/api/status/" + jobId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            JsonNode status = mapper.readTree(body);
+            String state = status.get("status").asText();
+            if (!"queued".equals(state) && !"running".equals(state)) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
 }
@@ -0,0 +1,52 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Tests for the event streams of nesting jobs.
+ */
+public class NestingJobTest {
+
+    @Test
+    void slowStreamsGetTheFullLayoutInsteadOfTheirBacklog() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        NestingJob job = new NestingJob("job", List.of(square, square), List.of("a", "b"),
+            GeometryUtils.createSheet(10, 10), new NestingConfig(0, 90, 10, 10, 1));
+        List<Runnable> stalled = new ArrayList<>();
+        List<SseEmitter.SseEventBuilder> sent = new ArrayList<>();
+        job.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                sent.add(builder);
+            }
+        }, stalled::add);
+
+        // the search goes on while the sender is stalled
+        for (int i = 0; i < NestingJob.MAX_PENDING_EVENTS + 4; i++) {
+            Geometry moved = AffineTransformation.translationInstance(i, 0).transform(square);
+            job.onImprovement(new NestingLayout(List.of(List.of(new PlacedPart(0, 0, moved),
+                new PlacedPart(1, 0, square))), List.of()), 10);
+        }
+        assertEquals(1, stalled.size());
+        assertTrue(sent.isEmpty());
+
+        stalled.get(0).run();
+        // the first delta beyond the limit replaced the backlog, three followed
+        assertEquals(4, sent.size());
+        LayoutUpdate resync = (LayoutUpdate) sent.get(0).build().stream()
+            .map(ResponseBodyEmitter.DataWithMediaType::getData).filter(LayoutUpdate.class::isInstance)
+            .findFirst().orElseThrow();
+        assertTrue(resync.full());
+        assertEquals(2, resync.parts().size());
+    }
+}
@@ -1,13 +1,22 @@
 package com.nestingapp;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
 
 /**
  * Basic tests for the NFP based nesting service.
@@ -47,4 +56,369 @@ public class NestingServiceTest {
         Geometry layout = service.nest(List.of(rect, square), sheet, 1);
         assertEquals(3.0, layout.getEnvelope().getArea(), 1e-6);
     }
+
+    @Test
+    void parallelSeededSearchMatchesSequential() {
+        Geometry rect = GeometryUtils.createPolygon(List.of(
+            new Coordinate(0, 0),
+            new Coordinate(2, 0),
+            new Coordinate(2, 1),
+            new Coordinate(0, 1)
+        ));
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        Polygon sheet = GeometryUtils.createSheet(10, 10);
+        List<Geometry> parts = List.of(rect, square, rect, square);
+
+        List<Geometry> sequential = service.nestParts(parts, sheet,
+            new NestingConfig(0, 90, 10, 10, 3).withSeed(42L).withParallelism(1));
+        List<Geometry> parallel = service.nestParts(parts, sheet,
+            new NestingConfig(0, 90, 10, 10, 3).withSeed(42L).withParallelism(4));
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertTrue(sequential.get(i).equalsExact(parallel.get(i), 1e-9));
+        }
+    }
+
+    @Test
+    void overflowsOntoAdditionalSheets() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        Geometry oversized = GeometryUtils.createSheet(3, 3);
+        Polygon sheet = GeometryUtils.createSheet(2, 1);
+        NestingLayout layout = service.nestLayout(List.of(square, square, square, oversized), sheet,
+            new NestingConfig(0, 90, 2, 1, 1));
+
+        assertEquals(2, layout.sheets().size());
+        assertEquals(List.of(3), layout.unplaced());
+        for (List<PlacedPart> parts : layout.sheets()) {
+            for (PlacedPart part : parts) {
+                assertTrue(sheet.covers(part.geometry()));
+            }
+        }
+    }
+
+    @Test
+    void identicalPartsShareOneVariantTable() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        // same square elsewhere, starting at another vertex and clockwise
+        Geometry moved = GeometryUtils.createPolygon(List.of(
+            new Coordinate(6, 5),
+            new Coordinate(5, 5),
+            new Coordinate(5, 6),
+            new Coordinate(6, 6)
+        ));
+        Geometry rect = GeometryUtils.createSheet(2, 1);
+
+        List<PartShape> shapes = service.shapes(List.of(square, rect, moved), null,
+            new NestingConfig(0.5, 90, 10, 10, 1));
+        assertSame(shapes.get(0), shapes.get(2));
+        assertNotSame(shapes.get(0), shapes.get(1));
+
+        PartShape bar = shapes.get(1);
+        assertEquals(4, bar.variantCount());
+        Envelope upright = bar.outline(bar.variantOf(90)).getEnvelopeInternal();
+        assertEquals(0, upright.getMinX(), 1e-9);
+        assertEquals(0, upright.getMinY(), 1e-9);
+        assertEquals(2, upright.getWidth(), 1e-9);
+        assertEquals(3, upright.getHeight(), 1e-9);
+    }
+
+    @Test
+    void sharedVariantTablesPlaceEveryPartWhereItsOutlineWent() {
+        Geometry triangle = GeometryUtils.createPolygon(List.of(
+            new Coordinate(0, 0), new Coordinate(3, 0), new Coordinate(0, 2)));
+        Geometry moved = AffineTransformation.translationInstance(5, 3).transform(triangle);
+        List<PartShape> shapes = service.shapes(List.of(moved, triangle), null,
+            new NestingConfig(0.5, 90, 10, 10, 1));
+        assertSame(shapes.get(0), shapes.get(1));
+
+        PartShape shape = shapes.get(0);
+        for (int v = 0; v < shape.variantCount(); v++) {
+            Geometry placed = AffineTransformation.translationInstance(2, 2).transform(shape.outline(v));
+            Geometry first = shape.placement(moved, v, placed).transform(moved);
+            Geometry second = shape.placement(triangle, v, placed).transform(triangle);
+            assertTrue(placed.covers(first));
+            assertTrue(first.equalsExact(second, 1e-9));
+        }
+    }
+
+    @Test
+    void partsKeepTheirAllowedRotations() {
+        Geometry rect = GeometryUtils.createSheet(3, 1);
+        Polygon sheet = GeometryUtils.createSheet(10, 10);
+        NestingConfig config = new NestingConfig(0, 15, 10, 10, 3).withSeed(7L)
+            .withRotations(Map.of("grain", List.of(0.0, 540.0)));
+        assertArrayEquals(new double[] { 0, 180 }, config.allowedRotations("grain"));
+        assertEquals(24, config.allowedRotations("free").length);
+
+        NestingLayout layout = service.nestLayout(List.of(rect, rect, rect), List.of("grain", "free", "grain"),
+            sheet, config, NestingListener.NONE);
+        for (List<PlacedPart> parts : layout.sheets()) {
+            for (PlacedPart part : parts) {
+                if (part.index() != 1) {
+                    assertTrue(part.rotation() == 0 || part.rotation() == 180);
+                }
+            }
+        }
+    }
+
+    @Test
+    void geneticSearchIsReproducibleInParallel() {
+        Geometry rect = GeometryUtils.createSheet(2, 1);
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        List<Geometry> parts = List.of(rect, square, rect, square, rect);
+        Polygon sheet = GeometryUtils.createSheet(4, 2);
+
+        NestingLayout sequential = service.nestLayout(parts, sheet,
+            new NestingConfig(0, 90, 4, 2, 3).withSeed(11L).withParallelism(1).withStrategy(NestingStrategy.GENETIC));
+        NestingLayout parallel = service.nestLayout(parts, sheet,
+            new NestingConfig(0, 90, 4, 2, 3).withSeed(11L).withParallelism(4).withStrategy(NestingStrategy.GENETIC));
+
+        assertEquals(List.of(), sequential.unplaced());
+        List<Geometry> placed = sequential.geometries();
+        assertEquals(parts.size(), placed.size());
+        for (int i = 0; i < placed.size(); i++) {
+            assertTrue(placed.get(i).equalsExact(parallel.geometries().get(i), 1e-9));
+        }
+    }
+
+    @Test
+    void timeLimitEndsOpenEndedSearch() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        Polygon sheet = GeometryUtils.createSheet(10, 10);
+        long start = System.nanoTime();
+        NestingLayout layout = service.nestLayout(List.of(square, square, square), sheet,
+            new NestingConfig(0, 90, 10, 10, Integer.MAX_VALUE).withTimeLimitMillis(200));
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(3, layout.geometries().size());
+    }
+
+    @Test
+    void timeLimitCutsLongRoundsShort() {
+        // one unlimited round of these takes tens of seconds of hill climbing
+        List<Geometry> parts = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            parts.add(star(8, 1 + i % 3));
+        }
+        Polygon sheet = GeometryUtils.createSheet(30, 30);
+        long start = System.nanoTime();
+        NestingLayout layout = service.nestLayout(parts, sheet,
+            new NestingConfig(0, 15, 30, 30, 1).withSeed(1L).withTimeLimitMillis(300));
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+
+        List<Geometry> placed = layout.geometries();
+        assertEquals(parts.size(), placed.size());
+        for (int i = 0; i < placed.size(); i++) {
+            assertTrue(sheet.covers(placed.get(i)));
+            for (int j = i + 1; j < placed.size(); j++) {
+                assertEquals(0, placed.get(i).intersection(placed.get(j)).getArea(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void bottomLeftModePacksIdenticalRectanglesTightly() {
+        Geometry brick = GeometryUtils.createSheet(2, 1);
+        List<Geometry> parts = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            parts.add(brick);
+        }
+        Polygon sheet = GeometryUtils.createSheet(10, 10);
+        NestingLayout layout = service.nestLayout(parts, sheet,
+            new NestingConfig(0, 90, 10, 10, 1).withStrategy(NestingStrategy.BOTTOM_LEFT));
+
+        assertEquals(8, layout.sheets().size());
+        assertEquals(List.of(), layout.unplaced());
+        for (List<PlacedPart> placed : layout.sheets()) {
+            for (int i = 0; i < placed.size(); i++) {
+                Envelope env = placed.get(i).geometry().getEnvelopeInternal();
+                assertTrue(sheet.getEnvelopeInternal().covers(env));
+                for (int j = i + 1; j < placed.size(); j++) {
+                    Envelope other = placed.get(j).geometry().getEnvelopeInternal();
+                    assertTrue(env.intersection(other).getArea() < 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void toleranceSimplifiesOutlinesWithoutShrinkingThem() {
+        List<Coordinate> circle = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            double angle = 2 * Math.PI * i / 256;
+            circle.add(new Coordinate(5 * Math.cos(angle), 5 * Math.sin(angle)));
+        }
+        Geometry disc = GeometryUtils.createPolygon(circle);
+        double tolerance = 0.05;
+        NestingConfig config = new NestingConfig(0.5, 90, 20, 20, 1).withTolerance(tolerance);
+        PartShape exact = service.shapes(List.of(disc), null, new NestingConfig(0.5, 90, 20, 20, 1)).get(0);
+        PartShape coarse = service.shapes(List.of(disc), null, config).get(0);
+
+        for (int v = 0; v < coarse.variantCount(); v++) {
+            Geometry outline = coarse.outline(v);
+            Geometry reference = exact.outline(exact.variantOf(coarse.rotation(v)));
+            // the grown outline is offset by the growth, so align the centres
+            Coordinate shift = outline.getEnvelopeInternal().centre();
+            shift.x -= reference.getEnvelopeInternal().centre().x;
+            shift.y -= reference.getEnvelopeInternal().centre().y;
+            reference = AffineTransformation.translationInstance(shift.x, shift.y).transform(reference);
+            assertTrue(outline.isValid());
+            assertTrue(outline.getNumPoints() * 4 < reference.getNumPoints());
+            assertTrue(outline.covers(reference));
+            assertTrue(outline.getArea() < reference.getArea() * 1.05);
+            double grid = tolerance * PartShape.GRID_FRACTION;
+            for (Coordinate c : outline.getCoordinates()) {
+                assertEquals(0, Math.IEEEremainder(c.x, grid), 1e-9);
+                assertEquals(0, Math.IEEEremainder(c.y, grid), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void smallPartsAreNestedInsideHoles() {
+        Geometry frame = GeometryUtils.createSheet(6, 6).difference(GeometryUtils.createPolygon(List.of(
+            new Coordinate(1, 1),
+            new Coordinate(5, 1),
+            new Coordinate(5, 5),
+            new Coordinate(1, 5)
+        )));
+        Geometry square = GeometryUtils.createSheet(2, 2);
+        List<Geometry> parts = List.of(frame, square, square, square, square);
+        Polygon sheet = GeometryUtils.createSheet(6, 6);
+        NestingConfig config = new NestingConfig(0, 90, 6, 6, 1);
+
+        ScoredLayout nfp = service.evaluate(service.shapes(parts, null, config), sheet,
+            new int[] { 0, 1, 2, 3, 4 }, new int[5], false, Deadline.NONE);
+        NestingLayout bottomLeft = service.nestLayout(parts, sheet,
+            new NestingConfig(0, 90, 6, 6, 1).withStrategy(NestingStrategy.BOTTOM_LEFT));
+        for (NestingLayout layout : List.of(nfp.layout(), bottomLeft)) {
+            assertEquals(1, layout.sheets().size());
+            assertEquals(List.of(), layout.unplaced());
+            List<PlacedPart> placed = layout.sheets().get(0);
+            for (int i = 0; i < placed.size(); i++) {
+                for (int j = i + 1; j < placed.size(); j++) {
+                    assertTrue(placed.get(i).geometry().intersection(placed.get(j).geometry()).getArea() < 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void stoppedDeadlineAbandonsEvaluation() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        List<Geometry> parts = List.of(square, square, square);
+        NestingConfig config = new NestingConfig(0, 90, 10, 10, 1);
+        Deadline deadline = Deadline.in(0);
+        deadline.stop();
+
+        ScoredLayout layout = service.evaluate(service.shapes(parts, null, config), GeometryUtils.createSheet(10, 10),
+            new int[] { 0, 1, 2 }, new int[3], true, deadline);
+        assertEquals(List.of(), layout.layout().sheets());
+        assertEquals(List.of(0, 1, 2), layout.layout().unplaced());
+
+        Deadline.NONE.stop();
+        assertFalse(Deadline.NONE.expired());
+    }
+
+    @Test
+    void stoppedBottomLeftSearchReportsRemainingPartsUnplaced() {
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        List<Geometry> parts = List.of(square, square, square, square);
+        NestingConfig config = new NestingConfig(0, 90, 10, 10, 1).withStrategy(NestingStrategy.BOTTOM_LEFT);
+        int[] polls = new int[1];
+
+        NestingLayout layout = service.nestLayout(parts, GeometryUtils.createSheet(10, 10), config,
+            new NestingListener() {
+                @Override
+                public boolean stopRequested() {
+                    // stop once two parts are placed
+                    return ++polls[0] > 2;
+                }
+            });
+        assertEquals(1, layout.sheets().size());
+        assertEquals(2, layout.sheets().get(0).size());
+        assertEquals(2, layout.unplaced().size());
+    }
+
+    @Test
+    void seededSearchStartsFromTheSeedLayout() {
+        Geometry rect = GeometryUtils.createSheet(2, 1);
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        List<Geometry> parts = List.of(rect, square, rect);
+        Polygon sheet = GeometryUtils.createSheet(10, 10);
+        // without rounds to improve on it, the result is the seed itself
+        NestingConfig config = new NestingConfig(0, 90, 10, 10, 0).withSeed(1L);
+
+        NestingLayout seeded = service.nestLayout(parts, null, sheet, config, NestingListener.NONE,
+            new LayoutSeed(new int[] { 2, 1, 0 }, new double[] { 90, Double.NaN, 270 }));
+        ScoredLayout expected = service.evaluate(service.shapes(parts, null, config), sheet,
+            new int[] { 2, 1, 0 }, new int[] { 1, 0, 3 }, true, Deadline.NONE);
+
+        List<PlacedPart> placed = seeded.sheets().get(0);
+        List<PlacedPart> reference = expected.layout().sheets().get(0);
+        assertEquals(reference.size(), placed.size());
+        for (int i = 0; i < placed.size(); i++) {
+            assertEquals(reference.get(i).index(), placed.get(i).index());
+            assertEquals(reference.get(i).rotation(), placed.get(i).rotation());
+            assertTrue(reference.get(i).geometry().equalsExact(placed.get(i).geometry(), 1e-9));
+        }
+    }
+
+    @Test
+    void renestKeepsPlacedPartsAndFillsFreedSpace() {
+        Geometry square = GeometryUtils.createSheet(2, 2);
+        Geometry bar = GeometryUtils.createSheet(4, 2);
+        Polygon sheet = GeometryUtils.createSheet(4, 4);
+        NestingConfig config = new NestingConfig(0, 90, 4, 4, 3).withSeed(1L);
+        NestingLayout base = service.nestLayout(List.of(square, square, square, square), sheet, config);
+        assertEquals(1, base.sheets().size());
+
+        // drop two squares and add a bar that needs their space
+        int[] kept = new int[] { 0, 1, -1, -1 };
+        NestingLayout fixed = base.renumber(kept);
+        NestingLayout updated = service.renest(List.of(square, square, bar), null, sheet, config, fixed,
+            NestingListener.NONE);
+
+        assertEquals(1, updated.sheets().size());
+        assertEquals(List.of(), updated.unplaced());
+        List<PlacedPart> placed = updated.sheets().get(0);
+        assertEquals(3, placed.size());
+        for (PlacedPart before : fixed.sheets().get(0)) {
+            assertTrue(placed.stream().anyMatch(p -> p.index() == before.index()
+                && p.geometry().equalsExact(before.geometry())));
+        }
+        for (int i = 0; i < placed.size(); i++) {
+            for (int j = i + 1; j < placed.size(); j++) {
+                assertTrue(placed.get(i).geometry().intersection(placed.get(j).geometry()).getArea() < 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void stoppedRenestReportsPendingPartsUnplaced() {
+        Geometry square = GeometryUtils.createSheet(2, 2);
+        Polygon sheet = GeometryUtils.createSheet(4, 4);
+        NestingConfig config = new NestingConfig(0, 90, 4, 4, 3).withSeed(1L);
+        NestingLayout fixed = service.nestLayout(List.of(square), sheet, config);
+
+        NestingLayout updated = service.renest(List.of(square, square, square), null, sheet, config, fixed,
+            new NestingListener() {
+                @Override
+                public boolean stopRequested() {
+                    return true;
+                }
+            });
+        assertEquals(fixed.sheets(), updated.sheets());
+        assertEquals(List.of(1, 2), updated.unplaced());
+    }
+
+    private static Geometry star(int points, double radius) {
+        List<Coordinate> coords = new ArrayList<>();
+        for (int i = 0; i < 2 * points; i++) {
+            double angle = Math.PI * i / points;
+            double r = i % 2 == 0 ? radius : radius / 2;
+            coords.add(new Coordinate(r * Math.cos(angle), r * Math.sin(angle)));
+        }
+        return GeometryUtils.createPolygon(coords);
+    }
 }
@@ -0,0 +1,54 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Tests for the content-addressed NFP cache.
+ */
+public class NfpCacheTest {
+
+    private final Geometry lShape = GeometryUtils.createPolygon(List.of(
+        new Coordinate(0, 0),
+        new Coordinate(2, 0),
+        new Coordinate(2, 1),
+        new Coordinate(1, 1),
+        new Coordinate(1, 2),
+        new Coordinate(0, 2)
+    ));
+
+    @Test
+    void translatedPairsHitTheCache() {
+        NfpCache cache = new NfpCache(GeometryUtils.nfpEngine());
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        cache.noFitPolygon(lShape, square);
+
+        Geometry movedBase = AffineTransformation.translationInstance(5, 3).transform(lShape);
+        Geometry movedPart = AffineTransformation.translationInstance(-2, 7).transform(square);
+        Geometry cached = cache.noFitPolygon(movedBase, movedPart);
+        Geometry fresh = GeometryUtils.noFitPolygon(movedBase, movedPart);
+
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertTrue(cached.equalsExact(fresh, 1e-9) || cached.symDifference(fresh).getArea() < 1e-9);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        NfpCache cache = new NfpCache(GeometryUtils.nfpEngine(), 1, NfpCache.DEFAULT_QUANTUM);
+        Geometry square = GeometryUtils.createSheet(1, 1);
+        cache.noFitPolygon(lShape, square);
+        cache.noFitPolygon(square, lShape);
+        cache.noFitPolygon(lShape, square);
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+}
@@ -0,0 +1,48 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+
+/**
+ * Tests for the packed polygon overlap kernel.
+ */
+public class PackedPolygonTest {
+
+    private final PackedPolygon square = PackedPolygon.of(GeometryUtils.createSheet(2, 2));
+
+    @Test
+    void touchingAtEdgesAndCornersIsNoOverlap() {
+        assertFalse(square.overlaps(2, 0, square));
+        assertFalse(square.overlaps(2, 2, square));
+        assertFalse(square.overlaps(-2, 1, square));
+        assertTrue(square.overlaps(1.5, 0.5, square));
+    }
+
+    @Test
+    void coincidentOutlinesOverlap() {
+        assertTrue(square.overlaps(0, 0, square));
+        // no vertex of either square lies inside the other
+        assertTrue(square.overlaps(1, 0, square));
+    }
+
+    @Test
+    void partsInsideHolesDoNotOverlap() {
+        Geometry frame = GeometryUtils.createSheet(6, 6).difference(GeometryUtils.createPolygon(List.of(
+            new Coordinate(1, 1),
+            new Coordinate(5, 1),
+            new Coordinate(5, 5),
+            new Coordinate(1, 5)
+        )));
+        PackedPolygon packed = PackedPolygon.of(frame);
+        assertFalse(square.overlaps(2, 2, packed));
+        assertFalse(square.overlaps(1, 1, packed));
+        assertTrue(square.overlaps(0.5, 2, packed));
+        assertTrue(packed.overlaps(-0.5, -0.5, square));
+    }
+}
@@ -0,0 +1,66 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Tests for the parallel part import.
+ */
+public class PartImportServiceTest {
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, null, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importsFilesInUploadOrder() {
+        PartImportService service = new PartImportService(2, 0.01);
+        MultipartFile[] files = new MultipartFile[12];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = file("part" + i + ".svg", "<svg><rect x='50' y='50' width='" + (i + 1) + "' height='1'/></svg>");
+        }
+        List<ImportedPart> parts = service.importFiles(files);
+        assertEquals(12, parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals("part" + i + ".svg", parts.get(i).id());
+            // normalised to the origin
+            assertEquals(new Envelope(0, i + 1, 0, 1), parts.get(i).geometry().getEnvelopeInternal());
+        }
+        service.shutdown();
+    }
+
+    @Test
+    void repairsSelfIntersectingOutlines() {
+        PartImportService service = new PartImportService(1, 0.01);
+        MultipartFile bowtie = file("bowtie.svg", "<svg><polygon points='0,0 2,2 2,0 0,2'/></svg>");
+        MultipartFile notes = file("notes.txt", "not a part");
+        List<ImportedPart> parts = service.importFiles(new MultipartFile[] { bowtie, notes });
+        assertEquals(1, parts.size());
+        Geometry part = parts.get(0).geometry();
+        assertTrue(part.isValid());
+        assertEquals(2, part.getArea(), 1e-9);
+        service.shutdown();
+    }
+
+    @Test
+    void unreadableFilesAreBadRequests() {
+        PartImportService service = new PartImportService(1, 0.01);
+        MultipartFile broken = file("broken.svg", "<svg><rect width='1'");
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+            () -> service.importFiles(new MultipartFile[] { broken }));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,54 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Tests for the spatial index of placed parts.
+ */
+public class PlacedIndexTest {
+
+    private final Geometry square = GeometryUtils.createSheet(1, 1);
+
+    @Test
+    void touchingPartsDoNotOverlap() {
+        PlacedIndex index = new PlacedIndex(List.of(new PlacedPart(0, 0, square)));
+        Geometry touching = AffineTransformation.translationInstance(1, 0).transform(square);
+        Geometry overlapping = AffineTransformation.translationInstance(0.5, 0.5).transform(square);
+        assertFalse(index.overlaps(touching));
+        assertTrue(index.overlaps(overlapping));
+    }
+
+    @Test
+    void removedPartsAreNoLongerChecked() {
+        PlacedIndex index = new PlacedIndex(List.of(new PlacedPart(0, 0, square)));
+        Geometry removed = index.remove(0).geometry();
+        assertEquals(square, removed);
+        assertEquals(0, index.size());
+        assertFalse(index.overlaps(square));
+    }
+
+    @Test
+    void holesAreOfferedSmallestFirst() {
+        Geometry frame = GeometryUtils.createSheet(10, 4).difference(GeometryUtils.createSheet(3, 3)
+            .union(AffineTransformation.translationInstance(4, 0).transform(GeometryUtils.createSheet(5, 3)))
+            .buffer(-0.5));
+        PlacedIndex index = new PlacedIndex(List.of(new PlacedPart(0, 0, frame)));
+        Envelope part = GeometryUtils.createSheet(1, 1).getEnvelopeInternal();
+        List<PlacedIndex.Hole> holes = index.holesFitting(part, 1);
+        assertEquals(2, holes.size());
+        assertTrue(holes.get(0).area() < holes.get(1).area());
+        assertEquals(1, index.holesFitting(GeometryUtils.createSheet(3, 1).getEnvelopeInternal(), 3).size());
+
+        index.remove(0);
+        assertEquals(List.of(), index.holesFitting(part, 1));
+    }
+}
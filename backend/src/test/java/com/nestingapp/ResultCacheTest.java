@@ -0,0 +1,90 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+/**
+ * Tests for the layout cache of nesting requests.
+ */
+public class ResultCacheTest {
+
+    private final Geometry square = GeometryUtils.createSheet(1, 1);
+    private final Geometry triangle = GeometryUtils.createPolygon(List.of(
+        new Coordinate(0, 0),
+        new Coordinate(3, 0),
+        new Coordinate(0, 2)
+    ));
+    private final Polygon sheet = GeometryUtils.createSheet(10, 10);
+    private final NestingConfig config = new NestingConfig(0, 90, 10, 10, 3);
+    private final NestingLayout layout = new NestingLayout(List.of(List.of(
+        new PlacedPart(1, 90, triangle),
+        new PlacedPart(0, 0, square))), List.of());
+
+    @Test
+    void repeatedRequestsHitUntilTheyExpire() {
+        MutableClock clock = new MutableClock();
+        ResultCache cache = new ResultCache(1, Duration.ofMinutes(10), true, clock);
+        cache.put(ResultCache.fingerprint(List.of(square, triangle), List.of("a", "b"), sheet, config), layout);
+
+        Geometry moved = AffineTransformation.translationInstance(4, 5).transform(triangle);
+        assertSame(layout, cache.get(
+            ResultCache.fingerprint(List.of(square, moved), List.of("a", "b"), sheet, config)));
+        assertNull(cache.get(ResultCache.fingerprint(List.of(square, triangle), List.of("a", "b"), sheet,
+            new NestingConfig(1, 90, 10, 10, 3))));
+        assertEquals(1, cache.hits());
+
+        clock.now = clock.now.plus(Duration.ofMinutes(10));
+        assertNull(cache.get(ResultCache.fingerprint(List.of(square, triangle), List.of("a", "b"), sheet, config)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void changedQuantitiesAndSheetStartFromTheCachedOrder() {
+        ResultCache cache = new ResultCache(8, Duration.ofHours(1), true);
+        cache.put(ResultCache.fingerprint(List.of(square, triangle), List.of("a", "b"), sheet, config), layout);
+
+        ResultCache.Fingerprint request = ResultCache.fingerprint(List.of(square, square, triangle),
+            List.of("a", "a", "b"), GeometryUtils.createSheet(20, 5), config);
+        assertNull(cache.get(request));
+        LayoutSeed seed = cache.seed(request);
+        assertArrayEquals(new int[] { 2, 0, 1 }, seed.order());
+        assertArrayEquals(new double[] { 0, Double.NaN, 90 }, seed.rotations());
+        assertEquals(1, cache.seeded());
+
+        assertNull(new ResultCache(8, Duration.ofHours(1), false).seed(request));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.EPOCH;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
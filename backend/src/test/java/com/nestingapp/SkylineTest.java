@@ -0,0 +1,32 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Tests for the bottom-left-fill skyline.
+ */
+public class SkylineTest {
+
+    @Test
+    void placesRectanglesBottomLeftOnTheSkyline() {
+        Skyline skyline = new Skyline(new Envelope(0, 10, 0, 10));
+        Skyline.Position any = (x, y) -> true;
+
+        assertArrayEquals(new double[] { 0, 0 }, skyline.find(4, 2, any), 1e-9);
+        skyline.add(0, 0, 4, 2);
+        assertArrayEquals(new double[] { 4, 0 }, skyline.find(4, 3, any), 1e-9);
+        skyline.add(4, 0, 4, 3);
+
+        // 3 wide does not fit right of x = 8, the lowest remaining spot is on the first box
+        assertArrayEquals(new double[] { 0, 2 }, skyline.find(3, 1, any), 1e-9);
+        // a full-width box rests on the highest one
+        assertArrayEquals(new double[] { 0, 3 }, skyline.find(10, 1, any), 1e-9);
+        assertNull(skyline.find(10, 8, any));
+        // rejected positions are skipped
+        assertArrayEquals(new double[] { 8, 0 }, skyline.find(2, 2, (x, y) -> x > 5), 1e-9);
+    }
+}
@@ -0,0 +1,101 @@
+package com.nestingapp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.springframework.core.io.ByteArrayResource;
+
+/**
+ * Tests for the streaming SVG importer.
+ */
+public class SvgParserTest {
+
+    @Test
+    void flattensPathsShapesAndNestedTransforms() throws Exception {
+        String svg = """
+            <svg xmlns="http://www.w3.org/2000/svg">
+              <defs><rect width="50" height="50"/></defs>
+              <g transform="translate(100 0)">
+                <g transform="scale(2)">
+                  <path d="M 0 0 h 4 a 2 2 0 0 1 0 4 h -4 z"/>
+                </g>
+              </g>
+              <circle cx="0" cy="50" r="1"/>
+              <rect x="0" y="200" width="10" height="5" rx="1"/>
+            </svg>
+            """;
+        Geometry geom = new SvgParser(0.0001).parseToGeometry(svg);
+        assertEquals(3, geom.getNumGeometries());
+
+        // 4x4 square with a half disc of radius 2, scaled by 2 and shifted
+        Geometry slot = geom.getGeometryN(0);
+        assertEquals(4 * (16 + 2 * Math.PI), slot.getArea(), 0.01);
+        Envelope env = slot.getEnvelopeInternal();
+        assertEquals(100, env.getMinX(), 1e-9);
+        assertEquals(112, env.getMaxX(), 0.001);
+        assertEquals(8, env.getMaxY(), 1e-9);
+
+        assertEquals(Math.PI, geom.getGeometryN(1).getArea(), 0.001);
+        assertEquals(50 - (4 - Math.PI), geom.getGeometryN(2).getArea(), 0.001);
+    }
+
+    @Test
+    void innerSubpathsBecomeHoles() throws Exception {
+        String svg = "<svg><path fill-rule='evenodd' d='M0 0H10V10H0Z M3 3H7V7H3Z'/></svg>";
+        Geometry geom = new SvgParser().parseToGeometry(
+            new ByteArrayResource(svg.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, geom.getNumGeometries());
+        Polygon frame = assertInstanceOf(Polygon.class, geom.getGeometryN(0));
+        assertEquals(1, frame.getNumInteriorRing());
+        assertEquals(84, frame.getArea(), 1e-9);
+    }
+
+    @Test
+    void referencedElementsUseTheDomFallback() throws Exception {
+        String svg = """
+            <svg xmlns="http://www.w3.org/2000/svg" xmlns:xlink="http://www.w3.org/1999/xlink">
+              <defs><polygon id="part" points="0,0 2,0 2,1 0,1"/></defs>
+              <use xlink:href="#part" x="10" y="0"/>
+              <use xlink:href="#part" x="20" y="0"/>
+            </svg>
+            """;
+        Geometry geom = new SvgParser().parseToGeometry(
+            new ByteArrayResource(svg.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(2, geom.getNumGeometries());
+        assertEquals(new Envelope(10, 12, 0, 1), geom.getGeometryN(0).getEnvelopeInternal());
+        assertEquals(new Envelope(20, 22, 0, 1), geom.getGeometryN(1).getEnvelopeInternal());
+    }
+
+    @Test
+    void absoluteUnitsAreConvertedAndPercentagesResolvedByTheDom() throws Exception {
+        String svg = """
+            <svg xmlns="http://www.w3.org/2000/svg">
+              <rect x="0" y="0" width="1in" height="25.4mm"/>
+              <rect x="200px" y="0" width="72pt" height="6pc"/>
+              <circle cx="10cm" cy="0" r="0.5in"/>
+            </svg>
+            """;
+        Geometry geom = new SvgParser().parseToGeometry(
+            new ByteArrayResource(svg.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, geom.getNumGeometries());
+        assertEquals(96, geom.getGeometryN(0).getEnvelopeInternal().getWidth(), 1e-9);
+        assertEquals(96, geom.getGeometryN(0).getEnvelopeInternal().getHeight(), 1e-9);
+        assertEquals(new Envelope(200, 296, 0, 96), geom.getGeometryN(1).getEnvelopeInternal());
+        assertEquals(960 / 2.54, geom.getGeometryN(2).getEnvelopeInternal().centre().x, 1e-6);
+
+        String relative = """
+            <svg xmlns="http://www.w3.org/2000/svg" width="100" height="100">
+              <rect x="0" y="0" width="50%" height="10"/>
+            </svg>
+            """;
+        Geometry resolved = new SvgParser().parseToGeometry(
+            new ByteArrayResource(relative.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(new Envelope(0, 50, 0, 10), resolved.getEnvelopeInternal());
+    }
+}
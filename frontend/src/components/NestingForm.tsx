@@ -2,7 +2,64 @@ import React, { useState } from 'react';
 import FileUploader from './FileUploader';
 import NestingParametersForm, { type NestingParameters } from './NestingParameters';
 import api from '../services/api';
-import NestingPreview, { type NestingResult } from '../views/NestingPreview';
+import NestingPreview, { type NestingResult, type Placement } from '../views/NestingPreview';
+
+/** Response of the backend when a nesting job is queued. */
+interface JobResponse {
+  jobId: string;
+  status: string;
+}
+
+/** Progress of a nesting job as reported by `/status/{id}`. */
+interface JobStatus {
+  status: string;
+  progress: number;
+  estimatedTime: string;
+  iterations: number;
+  bestUtilisation: number;
+  error: string | null;
+}
+
+/** Placement of one uploaded part inside a streamed layout update. */
+interface PartUpdate extends Placement {
+  part: number;
+}
+
+/** Improvement pushed by `/stream/{id}`; only changed parts unless `full`. */
+interface LayoutUpdate {
+  iteration: number;
+  utilisation: number;
+  full: boolean;
+  parts: PartUpdate[];
+}
+
+/**
+ * Follows the server-sent event stream of a job, calling `onLayout` with the
+ * merged best layout after every improvement. Resolves with the final job
+ * status once the backend sends `done`.
+ */
+const followJob = (
+  jobId: string,
+  onLayout: (placements: Map<number, Placement>, update: LayoutUpdate) => void,
+) =>
+  new Promise<JobStatus>((resolve, reject) => {
+    const placements = new Map<number, Placement>();
+    const source = new EventSource(`${api.defaults.baseURL}/stream/${jobId}`);
+    source.addEventListener('layout', (event) => {
+      const update: LayoutUpdate = JSON.parse((event as MessageEvent).data);
+      if (update.full) placements.clear();
+      update.parts.forEach((p) => placements.set(p.part, p));
+      onLayout(placements, update);
+    });
+    source.addEventListener('done', (event) => {
+      source.close();
+      resolve(JSON.parse((event as MessageEvent).data));
+    });
+    source.onerror = () => {
+      source.close();
+      reject(new Error('stream failed'));
+    };
+  });
 
 /**
  * Combines file uploading and parameter inputs, posts to the backend
@@ -14,6 +71,8 @@ const NestingForm: React.FC = () => {
   const [layout, setLayout] = useState<NestingResult | null>(null);
   const [error, setError] = useState<string | null>(null);
   const [loading, setLoading] = useState(false);
+  const [progress, setProgress] = useState<LayoutUpdate | null>(null);
+  const [jobId, setJobId] = useState<string | null>(null);
 
   const handleSubmit = async () => {
     if (!files || files.length === 0) {
@@ -36,9 +95,25 @@ const NestingForm: React.FC = () => {
 
     try {
       setLoading(true);
-      const response = await api.post<NestingResult>('/nest', formData, {
+      const job = await api.post<JobResponse>('/nest', formData, {
         headers: { 'Content-Type': 'multipart/form-data' },
       });
+      const id = job.data.jobId;
+      setJobId(id);
+      // Render every improvement as it arrives until the search finishes.
+      const final = await followJob(id, (placements, update) => {
+        setProgress(update);
+        setLayout((previous) => ({
+          nestedParts: Array.from(placements.values()),
+          sheet: previous?.sheet ?? { width: config.sheetWidth, height: config.sheetHeight },
+          sheets: previous?.sheets ?? [],
+          unplaced: previous?.unplaced ?? [],
+        }));
+      });
+      if (final.status !== 'completed') {
+        throw new Error(final.error ?? final.status);
+      }
+      const response = await api.get<NestingResult>(`/result/${id}`);
       setLayout(response.data);
       setError(null);
     } catch {
@@ -46,13 +121,26 @@ const NestingForm: React.FC = () => {
       setLayout(null);
     } finally {
       setLoading(false);
+      setProgress(null);
     }
   };
 
+  // Stops the running search; the backend keeps the best layout found so far.
+  const handleStop = async () => {
+    if (!jobId) return;
+    try {
+      await api.delete(`/nest/${jobId}`);
+    } catch {
+      setError('Stop failed');
+    }
+  };
+
+  // Downloads the real part outlines of the last job's layout.
   const handleExport = async () => {
-    if (!layout) return;
+    if (!layout || !jobId) return;
     try {
-      const response = await api.post('/export', { format: 'svg', layout }, {
+      const response = await api.get(`/export/${jobId}`, {
+        params: { format: 'svg' },
         responseType: 'blob',
       });
       const url = window.URL.createObjectURL(new Blob([response.data]));
@@ -74,6 +162,12 @@ const NestingForm: React.FC = () => {
       <button onClick={handleSubmit} disabled={loading}>
         {loading ? 'Nesting...' : 'Nest'}
       </button>
+      {loading && jobId && <button onClick={handleStop}>Stop</button>}
+      {progress && (
+        <div>
+          {progress.iteration} iterations · utilisation {(progress.utilisation * 100).toFixed(1)}%
+        </div>
+      )}
       {error && <div className="error">{error}</div>}
       {layout && (
         <div>
@@ -6,6 +6,8 @@ export interface Placement {
   x: number;
   y: number;
   rotation: number;
+  /** Index of the sheet the part was placed on. */
+  sheetIndex: number;
 }
 
 /** Specification of the sheet used for nesting. */
@@ -14,10 +16,19 @@ export interface SheetSpec {
   height: number;
 }
 
+/** Usage summary of one sheet in a multi-sheet layout. */
+export interface SheetUsage {
+  index: number;
+  partCount: number;
+  utilisation: number;
+}
+
 /** Nesting result holding all placements and sheet info. */
 export interface NestingResult {
   nestedParts: Placement[];
   sheet: SheetSpec;
+  sheets: SheetUsage[];
+  unplaced: string[];
 }
 
 interface PreviewProps {